@@ -663,6 +663,11 @@ public final class JavaScriptCore extends Plugin {
 	 * @see #getDefaultOptions()
 	 */
 	public static final String CORE_JAVA_BUILD_RECREATE_MODIFIED_CLASS_FILES_IN_OUTPUT_FOLDER = PLUGIN_ID + ".builder.recreateModifiedClassFileInOutputFolder"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_JAVA_BUILD_PARSER_WORKERS = PLUGIN_ID + ".builder.parserWorkers"; //$NON-NLS-1$
 	/**
 	 * Possible  configurable option ID.
 	 * @see #getDefaultOptions()
@@ -698,6 +703,36 @@ public final class JavaScriptCore extends Plugin {
 	 * @see #getDefaultOptions()
 	 */
 	public static final String CORE_ENABLE_CLASSPATH_MULTIPLE_OUTPUT_LOCATIONS = PLUGIN_ID + ".classpath.multipleOutputLocations"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_INDEX_CACHE_SIZE = PLUGIN_ID + ".index.cacheSize"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_INDEX_WORKERS = PLUGIN_ID + ".index.workers"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_INDEX_PARSER_WORKERS = PLUGIN_ID + ".index.parserWorkers"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_SEARCH_LOCATOR_WORKERS = PLUGIN_ID + ".search.locatorWorkers"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_SEARCH_RESULT_CACHE_SIZE = PLUGIN_ID + ".search.resultCacheSize"; //$NON-NLS-1$
+	/**
+	 * Possible  configurable option ID.
+	 * @see #getDefaultOptions()
+	 */
+	public static final String CORE_MODEL_CACHE_SIZE = PLUGIN_ID + ".model.cacheSize"; //$NON-NLS-1$
 	/**
 	 * Default task tag
 	 * @deprecated Use {@link #DEFAULT_TASK_TAGS} instead
@@ -2065,6 +2100,13 @@ public final class JavaScriptCore extends Plugin {
 	 *     - possible values:   { "error", "warning" }
 	 *     - default:           "warning"
 	 *
+	 * BUILDER / Set the number of parsing threads
+	 *    Number of threads parsing and inferring the source files of a full build. Type bindings
+	 *    are still created and resolved on the build thread, in the order of the source files.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.builder.parserWorkers"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 1
+	 *     - default:           "1"
+	 *
 	 * JAVACORE / Computing Project Build Order
 	 *    Indicate whether JavaScriptCore should enforce the project build order to be based on
 	 *    the includepath prerequisite chain. When requesting to compute, this takes over
@@ -2106,6 +2148,50 @@ public final class JavaScriptCore extends Plugin {
 	 *     - possible values:   { "enabled", "disabled" }
 	 *     - default:           "enabled"
 	 *
+	 * JAVACORE / Set the size of the index cache
+	 *    Maximum amount of memory in megabytes used to keep the data read from the search indexes,
+	 *    the least recently used data is discarded first.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.index.cacheSize"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 0
+	 *     - default:           "32"
+	 *
+	 * JAVACORE / Set the number of indexing threads
+	 *    Number of background threads updating the search indexes. Requests updating different
+	 *    indexes, for example those of two projects, run concurrently when it is greater than 1.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.index.workers"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 1
+	 *     - default:           "1"
+	 *
+	 * JAVACORE / Set the number of threads parsing the files of a project to index
+	 *    Number of threads parsing the source files when a whole project or source folder is indexed.
+	 *    Their index entries are still added to the index by the indexing thread, one file after the other.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.index.parserWorkers"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 1
+	 *     - default:           "1"
+	 *
+	 * JAVACORE / Set the number of threads locating search matches
+	 *    Number of threads parsing and resolving the files which may contain matches of a search.
+	 *    The matches are still reported in the same order, by the searching thread.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.search.locatorWorkers"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 1
+	 *     - default:           "1"
+	 *
+	 * JAVACORE / Set the size of the search result cache
+	 *    Maximum number of search matches kept so that a search repeated while the indexes it reads
+	 *    did not change and no working copy has unsaved changes is answered without searching again.
+	 *    When 0, no search result is kept.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.search.resultCacheSize"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 0
+	 *     - default:           "0"
+	 *
+	 * JAVACORE / Set the size of the JavaScript model cache
+	 *    Maximum amount of memory in megabytes used to keep the structure of the open source files,
+	 *    the least recently used files are closed first. When 0, the size is computed from the
+	 *    maximum heap size.
+	 *     - option id:         "org.eclipse.wst.jsdt.core.model.cacheSize"
+	 *     - possible values:	"&lt;n&gt;", where n is an integer greater than or equal to 0
+	 *     - default:           "0"
+	 *
 	 * JAVACORE / Set the timeout value for retrieving the method's parameter names from jsdoc
 	 *    Timeout in milliseconds to retrieve the method's parameter names from jsdoc.
 	 *    If the value is 0, the parameter names are not fetched and the raw names are returned.
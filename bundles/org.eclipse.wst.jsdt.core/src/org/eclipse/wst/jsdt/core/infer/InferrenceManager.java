@@ -49,7 +49,7 @@ public class InferrenceManager {
 
 	private  InferrenceSupportExtension [] extensions;
 
-	public static InferrenceManager getInstance(){
+	public static synchronized InferrenceManager getInstance(){
 		if( instance == null )
 			instance = new InferrenceManager();
 
@@ -61,9 +61,12 @@ public class InferrenceManager {
 	public InferrenceProvider [] getInferenceProviders()
 	{
 
-		if (extensions==null)
-		{
-			loadInferenceExtensions();
+		synchronized (this) {
+			// may be called by several parsing threads, see Compiler#parseWorkers
+			if (extensions==null)
+			{
+				loadInferenceExtensions();
+			}
 		}
 		ArrayList extProviders=new ArrayList();
 		extProviders.add(new DefaultInferrenceProvider());
@@ -60,6 +60,8 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 	// ONCE STABILIZED, THESE SHOULD RETURN TO A FINAL FIELD
 	public static boolean DEBUG = false;
 	public int parseThreshold = -1;
+	// number of threads parsing the initial units (1: parse them on the calling thread)
+	public int parseWorkers = 1;
 
 	public ReferenceBinding[] referenceBindings;
 	protected HashtableOfObject parsedUnits;
@@ -538,9 +540,18 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 
 	public void initializeParser() {
 
-		this.parser = new Parser(this.problemReporter, this.options.parseLiteralExpressionsAsConstants);
-		this.parser.javadocParser=new SourceJavadocParser(this.parser);
-		this.parser.javadocParser.checkDocComment=true;
+		this.parser = newParser(this.problemReporter);
+	}
+
+	/*
+	 * Answers a parser configured like this compiler's parser but reporting to the given problem reporter.
+	 * Also used to create the parsers of the parsing threads, see parseWorkers.
+	 */
+	protected Parser newParser(ProblemReporter reporter) {
+		Parser newParser = new Parser(reporter, this.options.parseLiteralExpressionsAsConstants);
+		newParser.javadocParser=new SourceJavadocParser(newParser);
+		newParser.javadocParser.checkDocComment=true;
+		return newParser;
 	}
 
 	/**
@@ -549,11 +560,15 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 	 */
 	protected void internalBeginToCompile(ICompilationUnit[] sourceUnits, int maxUnits) {
 		SimpleSetOfCharArray allDefinedTypes = new SimpleSetOfCharArray();
+		CompilationResult[] unitResults = new CompilationResult[maxUnits];
+		for (int i = 0; i < maxUnits; i++)
+			unitResults[i] = new CompilationResult(sourceUnits[i], i, maxUnits, this.options.maxProblemsPerUnit);
+		// parsing and inference do not touch the lookup environment, they can run ahead on several threads
+		Object[] parsedUnits = this.parseWorkers > 1 && maxUnits > 1 ? parseUnits(sourceUnits, unitResults, maxUnits) : null;
 		// Switch the current policy and compilation result for this unit to the requested one.
 		for (int i = 0; i < maxUnits; i++) {
 			CompilationUnitDeclaration parsedUnit;
-			CompilationResult unitResult =
-				new CompilationResult(sourceUnits[i], i, maxUnits, this.options.maxProblemsPerUnit);
+			CompilationResult unitResult = unitResults[i];
 			try {
 				if (options.verbose) {
 					this.out.println(
@@ -564,13 +579,22 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 							new String(sourceUnits[i].getFileName())
 						}));
 				}
-				// diet parsing for large collection of units
-				if (totalUnits < parseThreshold) {
-					parsedUnit = parser.parse(sourceUnits[i], unitResult);
+				if (parsedUnits != null) {
+					// rethrow what parsing this unit raised, as if it had been parsed now
+					if (parsedUnits[i] instanceof RuntimeException)
+						throw (RuntimeException) parsedUnits[i];
+					if (parsedUnits[i] instanceof Error)
+						throw (Error) parsedUnits[i];
+					parsedUnit = (CompilationUnitDeclaration) parsedUnits[i];
 				} else {
-					parsedUnit = parser.dietParse(sourceUnits[i], unitResult);
+					// diet parsing for large collection of units
+					if (totalUnits < parseThreshold) {
+						parsedUnit = parser.parse(sourceUnits[i], unitResult);
+					} else {
+						parsedUnit = parser.dietParse(sourceUnits[i], unitResult);
+					}
+					parser.inferTypes(parsedUnit,this.options);
 				}
-				parser.inferTypes(parsedUnit,this.options);
 
 				SimpleSetOfCharArray defined = new SimpleSetOfCharArray();
 				for (int j = 0; j < parsedUnit.numberInferredTypes; j++) {
@@ -596,6 +620,63 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 		lookupEnvironment.completeTypeBindings(allDefinedTypes.values);
 	}
 
+	/*
+	 * Parses and infers the given units on parseWorkers threads, the calling thread being one of them.
+	 * Each thread has its own parser and problem reporter, problems are recorded in the result of their unit.
+	 * Answers the declaration of each unit, or the exception or error raised while parsing it.
+	 */
+	protected Object[] parseUnits(final ICompilationUnit[] sourceUnits, final CompilationResult[] unitResults, final int maxUnits) {
+		final Object[] parsedUnits = new Object[maxUnits];
+		final int[] nextUnit = new int[1];
+		class ParseLoop implements Runnable {
+			Parser unitParser;
+			ParseLoop(Parser unitParser) {
+				this.unitParser = unitParser;
+			}
+			public void run() {
+				while (true) {
+					int i;
+					synchronized (nextUnit) {
+						if ((i = nextUnit[0]++) >= maxUnits) return;
+					}
+					try {
+						CompilationUnitDeclaration parsedUnit;
+						// diet parsing for large collection of units
+						if (i < Compiler.this.parseThreshold) {
+							parsedUnit = this.unitParser.parse(sourceUnits[i], unitResults[i]);
+						} else {
+							parsedUnit = this.unitParser.dietParse(sourceUnits[i], unitResults[i]);
+						}
+						this.unitParser.inferTypes(parsedUnit, Compiler.this.options);
+						parsedUnits[i] = parsedUnit;
+					} catch (RuntimeException e) {
+						parsedUnits[i] = e;
+					} catch (Error e) {
+						parsedUnits[i] = e;
+					}
+				}
+			}
+		}
+		Thread[] workers = new Thread[Math.min(this.parseWorkers, maxUnits) - 1];
+		for (int w = 0; w < workers.length; w++) {
+			ProblemReporter reporter = new ProblemReporter(this.problemReporter.policy, this.options, this.problemReporter.problemFactory);
+			workers[w] = new Thread(new ParseLoop(newParser(reporter)), "JavaScript Parser " + (w + 1)); //$NON-NLS-1$
+			workers[w].setDaemon(true);
+			workers[w].start();
+		}
+		new ParseLoop(this.parser).run();
+		for (int w = 0; w < workers.length; w++) {
+			while (workers[w].isAlive()) {
+				try {
+					workers[w].join();
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+		}
+		return parsedUnits;
+	}
+
 	/**
 	 * Process a compilation unit already parsed and build.
 	 */
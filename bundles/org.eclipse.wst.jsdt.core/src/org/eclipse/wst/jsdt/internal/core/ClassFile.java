@@ -187,6 +187,8 @@ protected boolean buildStructure(OpenableElementInfo info, IProgressMonitor pm,
 	// compute other problems if needed
 //	CompilationUnitDeclaration compilationUnitDeclaration = null;
 	info.setChildren(unitInfo.children);
+	if (info instanceof ClassFileInfo)
+		((ClassFileInfo) info).sourceLength = unitInfo.getSourceLength();
 	try {
 
 		if (createAST) {
@@ -38,6 +38,11 @@ import org.eclipse.wst.jsdt.internal.compiler.util.SuffixConstants;
 	 */
 	protected JavaElement[] binaryChildren = null;
 
+	/*
+	 * The length of the source of the class file, used to weigh this info in the cache.
+	 */
+	int sourceLength;
+
 /**
  * Creates the handles and infos for the fields of the given binary type.
  * Adds new handles to the given vector.
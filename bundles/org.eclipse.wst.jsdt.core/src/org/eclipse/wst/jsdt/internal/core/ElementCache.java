@@ -76,6 +76,14 @@ protected void ensureSpaceLimit(int childrenSize, IJavaScriptElement parent) {
 	}
 }
 
+/*
+ * Returns the average space taken by an entry, or the given space if the cache is empty.
+ */
+protected int averageSpace(int defaultSpace) {
+	int size = fEntryTable.size();
+	return size == 0 ? defaultSpace : Math.max(1, fCurrentSpace / size);
+}
+
 /*
  * Returns a new instance of the receiver.
  */
@@ -56,6 +56,7 @@ public class JavaCorePreferenceInitializer extends AbstractPreferenceInitializer
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_DUPLICATE_RESOURCE, JavaScriptCore.WARNING);
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_CLEAN_OUTPUT_FOLDER, JavaScriptCore.CLEAN);
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_RECREATE_MODIFIED_CLASS_FILES_IN_OUTPUT_FOLDER, JavaScriptCore.IGNORE);
+		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_PARSER_WORKERS, "1"); //$NON-NLS-1$
 
 		// JavaScriptCore settings
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_ORDER, JavaScriptCore.IGNORE);
@@ -64,6 +65,12 @@ public class JavaCorePreferenceInitializer extends AbstractPreferenceInitializer
 		defaultOptionsMap.put(JavaScriptCore.CORE_INCOMPATIBLE_JDK_LEVEL, JavaScriptCore.IGNORE);
 		defaultOptionsMap.put(JavaScriptCore.CORE_ENABLE_CLASSPATH_EXCLUSION_PATTERNS, JavaScriptCore.ENABLED);
 		defaultOptionsMap.put(JavaScriptCore.CORE_ENABLE_CLASSPATH_MULTIPLE_OUTPUT_LOCATIONS, JavaScriptCore.ENABLED);
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_CACHE_SIZE, "32"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_PARSER_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_SEARCH_LOCATOR_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_SEARCH_RESULT_CACHE_SIZE, "0"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_MODEL_CACHE_SIZE, "0"); //$NON-NLS-1$
 
 		// encoding setting comes from resource plug-in
 		optionNames.add(JavaScriptCore.CORE_ENCODING);
@@ -9,14 +9,25 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.wst.jsdt.core.IBuffer;
 import org.eclipse.wst.jsdt.core.IJavaScriptElement;
+import org.eclipse.wst.jsdt.core.IOpenable;
 import org.eclipse.wst.jsdt.internal.core.util.LRUCache;
 
 /**
  * The cache of java elements to their respective info.
+ * <p>
+ * Each cache is locked independently, and the children cache is split into independently
+ * locked stripes, so that threads looking up infos do not contend on a single lock.
+ * Changes are serialized by the caller (see JavaModelManager#putInfos(...) and
+ * JavaModelManager#removeInfoAndChildren(...)) since closing an element on overflow
+ * touches several caches.
+ * </p>
  */
 public class JavaModelCache {
 	public static boolean VERBOSE = false;
@@ -27,8 +38,20 @@ public class JavaModelCache {
 	public static final int DEFAULT_OPENABLE_SIZE = 500; // average 6629 bytes per openable (includes children) -> maximum size : 662900*BASE_VALUE bytes
 	public static final int DEFAULT_CHILDREN_SIZE = 500*20; // average 20 children per openable
 
+	/*
+	 * The openable cache is sized in kilobytes, openables being weighted with their children.
+	 */
+	public static final int DEFAULT_OPENABLE_FOOTPRINT = 7; // kilobytes, see DEFAULT_OPENABLE_SIZE
+	private static final int SOURCE_FOOTPRINT = 2; // average bytes of infos per character of source, see DEFAULT_OPENABLE_SIZE
+	private static final int ELEMENT_FOOTPRINT = 100; // average bytes per element handle and info, see DEFAULT_OPENABLE_SIZE
+
 	public static final Object NON_EXISTING_JAR_TYPE_INFO = new Object();
 
+	/*
+	 * Number of stripes of the children cache, must be a power of 2.
+	 */
+	private static final int CHILDREN_STRIPES = 16;
+
 	/*
 	 * The memory ratio that should be applied to the above constants.
 	 */
@@ -37,7 +60,7 @@ public class JavaModelCache {
 	/**
 	 * Active Java Model Info
 	 */
-	protected JavaModelInfo modelInfo;
+	protected volatile JavaModelInfo modelInfo;
 
 	/**
 	 * Cache of open projects.
@@ -55,37 +78,75 @@ public class JavaModelCache {
 	protected ElementCache pkgCache;
 
 	/**
-	 * Cache of open compilation unit and class files
+	 * Cache of open compilation unit and class files, sized in kilobytes
 	 */
 	protected ElementCache openableCache;
 
+	/*
+	 * Space limit of the openable cache when no package needs more room, in kilobytes.
+	 */
+	protected int openableSpaceLimit;
+
 	/**
-	 * Cache of open children of openable Java Model Java elements
+	 * Cache of open children of openable Java Model Java elements, split in stripes (see childrenCacheFor(Object))
 	 */
-	protected Map childrenCache;
+	protected HashMap[] childrenCache;
 
 	/*
 	 * Cache of open binary type (inside a jar) that have a non-open parent
 	 */
-	protected LRUCache jarTypeCache;
+	protected volatile LRUCache jarTypeCache;
 
 public JavaModelCache() {
 	// set the size of the caches in function of the maximum amount of memory available
 	double ratio = getMemoryRatio();
 	this.projectCache = new HashMap(DEFAULT_PROJECT_SIZE); // NB: Don't use a LRUCache for projects as they are constantly reopened (e.g. during delta processing)
+	this.openableSpaceLimit = getDefaultOpenableSpaceLimit();
 	if (VERBOSE) {
 		this.rootCache = new VerboseElementCache((int) (DEFAULT_ROOT_SIZE * ratio), "Root cache"); //$NON-NLS-1$
 		this.pkgCache = new VerboseElementCache((int) (DEFAULT_PKG_SIZE * ratio), "Package cache"); //$NON-NLS-1$
-		this.openableCache = new VerboseElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio), "Openable cache"); //$NON-NLS-1$
+		this.openableCache = new VerboseElementCache(this.openableSpaceLimit, "Openable cache"); //$NON-NLS-1$
 	} else {
 		this.rootCache = new ElementCache((int) (DEFAULT_ROOT_SIZE * ratio));
 		this.pkgCache = new ElementCache((int) (DEFAULT_PKG_SIZE * ratio));
-		this.openableCache = new ElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio));
+		this.openableCache = new ElementCache(this.openableSpaceLimit);
 	}
-	this.childrenCache = new HashMap((int) (DEFAULT_CHILDREN_SIZE * ratio));
+	this.childrenCache = new HashMap[CHILDREN_STRIPES];
+	for (int i = 0; i < CHILDREN_STRIPES; i++)
+		this.childrenCache[i] = new HashMap((int) (DEFAULT_CHILDREN_SIZE * ratio) / CHILDREN_STRIPES);
 	resetJarTypeCache();
 }
 
+/*
+ * Returns the stripe of the children cache that holds the info of the given element.
+ */
+private HashMap childrenCacheFor(Object element) {
+	int hash = element.hashCode();
+	return this.childrenCache[(hash ^ (hash >>> 16)) & (CHILDREN_STRIPES - 1)];
+}
+
+private Object getChildInfo(IJavaScriptElement element) {
+	HashMap children = childrenCacheFor(element);
+	synchronized (children) {
+		return children.get(element);
+	}
+}
+
+private Object getProjectInfo(IJavaScriptElement element) {
+	synchronized (this.projectCache) {
+		return this.projectCache.get(element);
+	}
+}
+
+/*
+ * Returns the info for the element from the given cache, updating the cache ordering if asked.
+ */
+private static Object getInfo(LRUCache cache, IJavaScriptElement element, boolean updateOrdering) {
+	synchronized (cache) {
+		return updateOrdering ? cache.get(element) : cache.peek(element);
+	}
+}
+
 /**
  *  Returns the info for the element.
  */
@@ -94,25 +155,29 @@ public Object getInfo(IJavaScriptElement element) {
 		case IJavaScriptElement.JAVASCRIPT_MODEL:
 			return this.modelInfo;
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
-			return this.projectCache.get(element);
+			return getProjectInfo(element);
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
-			return this.rootCache.get(element);
+			return getInfo(this.rootCache, element, true);
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
-			return this.pkgCache.get(element);
+			return getInfo(this.pkgCache, element, true);
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
-			return this.openableCache.get(element);
+			return getInfo(this.openableCache, element, true);
 		case IJavaScriptElement.TYPE:
-			Object result = this.jarTypeCache.get(element);
+			Object result = getInfo(this.jarTypeCache, element, true);
 			if (result != null)
 				return result;
 			else
-				return this.childrenCache.get(element);
+				return getChildInfo(element);
 		default:
-			return this.childrenCache.get(element);
+			return getChildInfo(element);
 	}
 }
 
+protected int getDefaultOpenableSpaceLimit() {
+	return (int) (DEFAULT_OPENABLE_SIZE * getMemoryRatio()) * DEFAULT_OPENABLE_FOOTPRINT;
+}
+
 protected double getMemoryRatio() {
 	if (this.memoryRatio == -1) {
 		long maxMemory = Runtime.getRuntime().maxMemory();
@@ -132,22 +197,22 @@ protected Object peekAtInfo(IJavaScriptElement element) {
 		case IJavaScriptElement.JAVASCRIPT_MODEL:
 			return this.modelInfo;
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
-			return this.projectCache.get(element);
+			return getProjectInfo(element);
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
-			return this.rootCache.peek(element);
+			return getInfo(this.rootCache, element, false);
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
-			return this.pkgCache.peek(element);
+			return getInfo(this.pkgCache, element, false);
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
-			return this.openableCache.peek(element);
+			return getInfo(this.openableCache, element, false);
 		case IJavaScriptElement.TYPE:
-			Object result = this.jarTypeCache.peek(element);
+			Object result = getInfo(this.jarTypeCache, element, false);
 			if (result != null)
 				return result;
 			else
-				return this.childrenCache.get(element);
+				return getChildInfo(element);
 		default:
-			return this.childrenCache.get(element);
+			return getChildInfo(element);
 	}
 }
 
@@ -155,28 +220,139 @@ protected Object peekAtInfo(IJavaScriptElement element) {
  * Remember the info for the element.
  */
 protected void putInfo(IJavaScriptElement element, Object info) {
+	put(element, info);
+	ensureSpaceLimit(element, info);
+}
+/**
+ * Remember the infos of the given elements (keys are IJavaScriptElements and values are infos).
+ * The infos of the children are put before the infos of their parents, so that a thread that
+ * finds the info of an element in the cache also finds the infos of its children.
+ */
+protected void putInfos(Map newElements) {
+	Map.Entry[] entries = (Map.Entry[]) newElements.entrySet().toArray(new Map.Entry[newElements.size()]);
+	Arrays.sort(entries, new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return depth((IJavaScriptElement) ((Map.Entry) o2).getKey()) - depth((IJavaScriptElement) ((Map.Entry) o1).getKey());
+		}
+	});
+	computeFootprints(entries);
+	// make room for the children before they are added
+	for (int i = entries.length - 1; i >= 0; i--)
+		ensureSpaceLimit((IJavaScriptElement) entries[i].getKey(), entries[i].getValue());
+	for (int i = 0, length = entries.length; i < length; i++)
+		put((IJavaScriptElement) entries[i].getKey(), entries[i].getValue());
+}
+/*
+ * Weighs the infos of the openables with the length of their source, which the size of the infos
+ * of their children grows with, plus the cost of each child, see OpenableElementInfo#getCacheFootprint().
+ */
+private static void computeFootprints(Map.Entry[] entries) {
+	HashMap sizes = new HashMap();
+	for (int i = 0, length = entries.length; i < length; i++) {
+		IJavaScriptElement element = (IJavaScriptElement) entries[i].getKey();
+		IOpenable openable = element.getOpenable();
+		Object info = entries[i].getValue();
+		int size = 0;
+		if (element == openable)
+			size += SOURCE_FOOTPRINT * getSourceLength(openable, info);
+		else
+			size += ELEMENT_FOOTPRINT;
+		if (info instanceof JavaElementInfo)
+			size += 4 * ((JavaElementInfo) info).children.length;
+		Integer previous = (Integer) sizes.get(openable);
+		sizes.put(openable, new Integer(previous == null ? size : previous.intValue() + size));
+	}
+	for (int i = 0, length = entries.length; i < length; i++) {
+		IJavaScriptElement element = (IJavaScriptElement) entries[i].getKey();
+		int type = element.getElementType();
+		Object info = entries[i].getValue();
+		if ((type == IJavaScriptElement.JAVASCRIPT_UNIT || type == IJavaScriptElement.CLASS_FILE) && info instanceof OpenableElementInfo) {
+			int size = ((Integer) sizes.get(element)).intValue();
+			((OpenableElementInfo) info).cacheFootprint = Math.max(1, (size + 1023) >> 10);
+		}
+	}
+}
+/*
+ * Returns the length of the source of the given openable, or 0 if it is not known.
+ */
+private static int getSourceLength(IOpenable openable, Object info) {
+	if (info instanceof CompilationUnitElementInfo)
+		return ((CompilationUnitElementInfo) info).getSourceLength();
+	if (info instanceof ClassFileInfo)
+		return ((ClassFileInfo) info).sourceLength;
+	IBuffer buffer = BufferManager.getDefaultBufferManager().getBuffer(openable);
+	return buffer == null ? 0 : Math.max(0, buffer.getLength());
+}
+private static int depth(IJavaScriptElement element) {
+	int depth = 0;
+	for (IJavaScriptElement parent = element.getParent(); parent != null; parent = parent.getParent())
+		depth++;
+	return depth;
+}
+private void put(IJavaScriptElement element, Object info) {
 	switch (element.getElementType()) {
 		case IJavaScriptElement.JAVASCRIPT_MODEL:
 			this.modelInfo = (JavaModelInfo) info;
 			break;
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
-			this.projectCache.put(element, info);
-			this.rootCache.ensureSpaceLimit(((JavaElementInfo) info).children.length, element);
+			synchronized (this.projectCache) {
+				this.projectCache.put(element, info);
+			}
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
-			this.rootCache.put(element, info);
-			this.pkgCache.ensureSpaceLimit(((JavaElementInfo) info).children.length, element);
+			synchronized (this.rootCache) {
+				this.rootCache.put(element, info);
+			}
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
-			this.pkgCache.put(element, info);
-			this.openableCache.ensureSpaceLimit(((JavaElementInfo) info).children.length, element);
+			synchronized (this.pkgCache) {
+				this.pkgCache.put(element, info);
+			}
 			break;
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
-			this.openableCache.put(element, info);
+			synchronized (this.openableCache) {
+				this.openableCache.put(element, info);
+			}
 			break;
 		default:
-			this.childrenCache.put(element, info);
+			HashMap children = childrenCacheFor(element);
+			synchronized (children) {
+				children.put(element, info);
+			}
+	}
+}
+/*
+ * Ensures that the cache of the children of the given element can hold all of them.
+ */
+private void ensureSpaceLimit(IJavaScriptElement element, Object info) {
+	ElementCache cache;
+	int childSpace = 1;
+	switch (element.getElementType()) {
+		case IJavaScriptElement.JAVASCRIPT_PROJECT:
+			cache = this.rootCache;
+			break;
+		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
+			cache = this.pkgCache;
+			break;
+		case IJavaScriptElement.PACKAGE_FRAGMENT:
+			cache = this.openableCache;
+			childSpace = DEFAULT_OPENABLE_FOOTPRINT;
+			break;
+		default:
+			return;
+	}
+	synchronized (cache) {
+		cache.ensureSpaceLimit(((JavaElementInfo) info).children.length * cache.averageSpace(childSpace), element);
+	}
+}
+/**
+ * Remember the info for the jar binary type
+ */
+protected void putJarTypeInfo(IJavaScriptElement type, Object info) {
+	LRUCache cache = this.jarTypeCache;
+	synchronized (cache) {
+		cache.put(type, info);
 	}
 }
 /**
@@ -188,23 +364,52 @@ protected void removeInfo(JavaElement element) {
 			this.modelInfo = null;
 			break;
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
-			this.projectCache.remove(element);
-			this.rootCache.resetSpaceLimit((int) (DEFAULT_ROOT_SIZE * getMemoryRatio()), element);
+			synchronized (this.projectCache) {
+				this.projectCache.remove(element);
+			}
+			synchronized (this.rootCache) {
+				this.rootCache.resetSpaceLimit((int) (DEFAULT_ROOT_SIZE * getMemoryRatio()), element);
+			}
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
-			this.rootCache.remove(element);
-			this.pkgCache.resetSpaceLimit((int) (DEFAULT_PKG_SIZE * getMemoryRatio()), element);
+			synchronized (this.rootCache) {
+				this.rootCache.remove(element);
+			}
+			synchronized (this.pkgCache) {
+				this.pkgCache.resetSpaceLimit((int) (DEFAULT_PKG_SIZE * getMemoryRatio()), element);
+			}
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
-			this.pkgCache.remove(element);
-			this.openableCache.resetSpaceLimit((int) (DEFAULT_OPENABLE_SIZE * getMemoryRatio()), element);
+			synchronized (this.pkgCache) {
+				this.pkgCache.remove(element);
+			}
+			synchronized (this.openableCache) {
+				this.openableCache.resetSpaceLimit(this.openableSpaceLimit, element);
+			}
 			break;
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
-			this.openableCache.remove(element);
+			synchronized (this.openableCache) {
+				this.openableCache.remove(element);
+			}
 			break;
 		default:
-			this.childrenCache.remove(element);
+			HashMap children = childrenCacheFor(element);
+			synchronized (children) {
+				children.remove(element);
+			}
+	}
+}
+/*
+ * Sets the space the openable cache can use, in bytes, closing openables if it is now too big.
+ * If not positive, the space is computed in function of the maximum amount of memory available.
+ */
+protected void setOpenableSpaceLimit(long bytes) {
+	int limit = bytes > 0 ? (int) Math.min(bytes >> 10, Integer.MAX_VALUE) : getDefaultOpenableSpaceLimit();
+	synchronized (this.openableCache) {
+		this.openableSpaceLimit = limit;
+		if (this.openableCache.spaceLimitParent == null) // otherwise reset once the package is closed
+			this.openableCache.setSpaceLimit(limit);
 	}
 }
 protected void resetJarTypeCache() {
@@ -217,19 +422,30 @@ public String toStringFillingRation(String prefix) {
 	StringBuffer buffer = new StringBuffer();
 	buffer.append(prefix);
 	buffer.append("Project cache: "); //$NON-NLS-1$
-	buffer.append(this.projectCache.size());
+	synchronized (this.projectCache) {
+		buffer.append(this.projectCache.size());
+	}
 	buffer.append(" projects\n"); //$NON-NLS-1$
 	buffer.append(prefix);
-	buffer.append(this.rootCache.toStringFillingRation("Root cache")); //$NON-NLS-1$
+	synchronized (this.rootCache) {
+		buffer.append(this.rootCache.toStringFillingRation("Root cache")); //$NON-NLS-1$
+	}
 	buffer.append('\n');
 	buffer.append(prefix);
-	buffer.append(this.pkgCache.toStringFillingRation("Package cache")); //$NON-NLS-1$
+	synchronized (this.pkgCache) {
+		buffer.append(this.pkgCache.toStringFillingRation("Package cache")); //$NON-NLS-1$
+	}
 	buffer.append('\n');
 	buffer.append(prefix);
-	buffer.append(this.openableCache.toStringFillingRation("Openable cache")); //$NON-NLS-1$
+	synchronized (this.openableCache) {
+		buffer.append(this.openableCache.toStringFillingRation("Openable cache")); //$NON-NLS-1$
+	}
 	buffer.append('\n');
 	buffer.append(prefix);
-	buffer.append(this.jarTypeCache.toStringFillingRation("Jar type cache")); //$NON-NLS-1$
+	LRUCache jarTypes = this.jarTypeCache;
+	synchronized (jarTypes) {
+		buffer.append(jarTypes.toStringFillingRation("Jar type cache")); //$NON-NLS-1$
+	}
 	buffer.append('\n');
 	return buffer.toString();
 }
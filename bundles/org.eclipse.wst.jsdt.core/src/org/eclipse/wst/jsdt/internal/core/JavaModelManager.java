@@ -254,6 +254,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	private static final String BUFFER_MANAGER_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/buffermanager" ; //$NON-NLS-1$
 	private static final String INDEX_MANAGER_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/indexmanager" ; //$NON-NLS-1$
+	private static final String INDEX_MANAGER_STATISTICS_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/indexmanager/statistics" ; //$NON-NLS-1$
 	private static final String COMPILER_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/compiler" ; //$NON-NLS-1$
 	private static final String JAVAMODEL_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/javamodel" ; //$NON-NLS-1$
 	private static final String JAVAMODELCACHE_DEBUG = JavaScriptCore.PLUGIN_ID + "/debug/javamodel/cache" ; //$NON-NLS-1$
@@ -993,7 +994,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	/**
 	 * Infos cache.
 	 */
-	private JavaModelCache cache;
+	private volatile JavaModelCache cache;
 
 	/*
 	 * Temporary cache of newly opened elements
@@ -1396,6 +1397,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			option = Platform.getDebugOption(INDEX_MANAGER_DEBUG);
 			if(option != null) JobManager.VERBOSE = option.equalsIgnoreCase(TRUE) ;
 
+			option = Platform.getDebugOption(INDEX_MANAGER_STATISTICS_DEBUG);
+			if(option != null) IndexManager.STATISTICS = option.equalsIgnoreCase(TRUE) ;
+
 			option = Platform.getDebugOption(JAVAMODEL_DEBUG);
 			if(option != null) JavaModelManager.VERBOSE = option.equalsIgnoreCase(TRUE) ;
 
@@ -1558,8 +1562,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	/**
 	 *  Returns the info for the element.
+	 *  Not synchronized, the cache locks its own parts so that concurrent lookups do not block each other.
 	 */
-	public synchronized Object getInfo(IJavaScriptElement element) {
+	public Object getInfo(IJavaScriptElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -1735,6 +1740,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_INVALID_CLASSPATH, JavaScriptCore.ABORT);
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_DUPLICATE_RESOURCE, JavaScriptCore.WARNING);
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_CLEAN_OUTPUT_FOLDER, JavaScriptCore.CLEAN);
+		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_PARSER_WORKERS, "1"); //$NON-NLS-1$
 
 		// JavaScriptCore settings
 		defaultOptionsMap.put(JavaScriptCore.CORE_JAVA_BUILD_ORDER, JavaScriptCore.IGNORE);
@@ -1743,6 +1749,12 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		defaultOptionsMap.put(JavaScriptCore.CORE_INCOMPATIBLE_JDK_LEVEL, JavaScriptCore.IGNORE);
 		defaultOptionsMap.put(JavaScriptCore.CORE_ENABLE_CLASSPATH_EXCLUSION_PATTERNS, JavaScriptCore.ENABLED);
 		defaultOptionsMap.put(JavaScriptCore.CORE_ENABLE_CLASSPATH_MULTIPLE_OUTPUT_LOCATIONS, JavaScriptCore.ENABLED);
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_CACHE_SIZE, "32"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_INDEX_PARSER_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_SEARCH_LOCATOR_WORKERS, "1"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_SEARCH_RESULT_CACHE_SIZE, "0"); //$NON-NLS-1$
+		defaultOptionsMap.put(JavaScriptCore.CORE_MODEL_CACHE_SIZE, "0"); //$NON-NLS-1$
 
 		// Formatter settings
 		defaultOptionsMap.putAll(DefaultCodeFormatterConstants.getEclipseDefaultSettings());
@@ -2872,7 +2884,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 *  Returns the info for this element without
 	 *  disturbing the cache ordering.
 	 */
-	protected synchronized Object peekAtInfo(IJavaScriptElement element) {
+	protected Object peekAtInfo(IJavaScriptElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -2931,18 +2943,14 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 //			}
 		}
 
-		Iterator iterator = newElements.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry entry = (Map.Entry) iterator.next();
-			this.cache.putInfo((IJavaScriptElement) entry.getKey(), entry.getValue());
-		}
+		this.cache.putInfos(newElements);
 	}
 
 	/*
 	 * Remember the info for the jar binary type
 	 */
 	protected synchronized void putJarTypeInfo(IJavaScriptElement type, Object info) {
-		this.cache.jarTypeCache.put(type, info);
+		this.cache.putJarTypeInfo(type, info);
 	}
 
 	/**
@@ -3151,6 +3159,19 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		MANAGER = new JavaModelManager();
 	}
 
+	/*
+	 * Sizes the cache of the open compilation units from the CORE_MODEL_CACHE_SIZE option.
+	 */
+	protected synchronized void updateCacheSize() {
+		long megabytes = 0;
+		try {
+			megabytes = Long.parseLong(JavaScriptCore.getOption(JavaScriptCore.CORE_MODEL_CACHE_SIZE));
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+		this.cache.setOpenableSpaceLimit(megabytes << 20);
+	}
+
 	/*
 	 * Resets the cache that holds on binary type in jar files
 	 */
@@ -4132,11 +4153,14 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 			// Initialize eclipse preferences
 			initializePreferences();
+			updateCacheSize();
 
 			// Listen to preference changes
 			Preferences.IPropertyChangeListener propertyListener = new Preferences.IPropertyChangeListener() {
 				public void propertyChange(Preferences.PropertyChangeEvent event) {
 					JavaModelManager.this.optionsCache = null;
+					if (JavaScriptCore.CORE_MODEL_CACHE_SIZE.equals(event.getProperty()))
+						updateCacheSize();
 				}
 			};
 			JavaScriptCore.getPlugin().getPluginPreferences().addPropertyChangeListener(propertyListener);
@@ -10,9 +10,16 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core;
 
+import org.eclipse.wst.jsdt.internal.core.util.ILRUCacheable;
 
 /** Element info for IOpenable elements. */
-public class OpenableElementInfo extends JavaElementInfo {
+public class OpenableElementInfo extends JavaElementInfo implements ILRUCacheable {
+
+	/*
+	 * Estimated space taken in the openable cache by this info and the infos of its children,
+	 * in kilobytes (see JavaModelCache#putInfos(Map)). Other caches count one unit per info.
+	 */
+	int cacheFootprint = 1;
 
 	/**
 	 * Is the structure of this element known
@@ -34,4 +41,11 @@ public class OpenableElementInfo extends JavaElementInfo {
 	public void setIsStructureKnown(boolean newIsStructureKnown) {
 		this.isStructureKnown = newIsStructureKnown;
 	}
+
+	/**
+	 * @see ILRUCacheable#getCacheFootprint()
+	 */
+	public int getCacheFootprint() {
+		return this.cacheFootprint;
+	}
 }
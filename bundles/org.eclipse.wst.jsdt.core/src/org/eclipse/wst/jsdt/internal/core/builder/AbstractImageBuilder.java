@@ -422,6 +422,15 @@ protected Compiler newCompiler() {
 	// enable the compiler reference info support
 	options.produceReferenceInfo = true;
 
+	String workers = (String) projectOptions.get(JavaScriptCore.CORE_JAVA_BUILD_PARSER_WORKERS);
+	if (workers != null) {
+		try {
+			newCompiler.parseWorkers = Math.max(1, Integer.parseInt(workers));
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+	}
+
 	return newCompiler;
 }
 
@@ -498,11 +507,8 @@ protected void recordParticipantResult(ValidationParticipantResult result) {
 	}
 
 	String[] dependencies = result.dependencies;
-	if (dependencies != null) {
-		ReferenceCollection refs = (ReferenceCollection) this.newState.references.get(result.sourceFile.typeLocator());
-		if (refs != null)
-			refs.addDependencies(dependencies);
-	}
+	if (dependencies != null)
+		this.newState.recordDependencies(result.sourceFile.typeLocator(), dependencies);
 }
 
 /**
@@ -14,9 +14,18 @@ public class AdditionalTypeCollection extends ReferenceCollection {
 
 char[][] definedTypeNames;
 
-protected AdditionalTypeCollection(char[][] definedTypeNames, char[][][] qualifiedReferences, char[][] simpleNameReferences) {
-	super(qualifiedReferences, simpleNameReferences);
+protected AdditionalTypeCollection(char[][] definedTypeNames, char[][][] qualifiedReferences, char[][] simpleNameReferences, NameDictionary names) {
+	super(qualifiedReferences, simpleNameReferences, names);
 	this.definedTypeNames = definedTypeNames; // do not bother interning member type names (ie. 'A$M')
 }
+
+protected AdditionalTypeCollection(char[][] definedTypeNames, byte[] qualifiedNameIds, byte[] simpleNameIds) {
+	super(qualifiedNameIds, simpleNameIds);
+	this.definedTypeNames = definedTypeNames;
+}
+
+ReferenceCollection copy(byte[] newQualifiedNameIds, byte[] newSimpleNameIds) {
+	return new AdditionalTypeCollection(this.definedTypeNames, newQualifiedNameIds, newSimpleNameIds);
+}
 }
 
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.builder;
+
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSet;
+
+/**
+ * Keeps the type locators referencing each name of the NameDictionary of a state, so that an incremental
+ * build only checks the ReferenceCollections of the source files which can reference a changed name
+ * instead of every collection of the state.
+ */
+class DependentIndex {
+
+// the type locators whose collection references a name, indexed by the id of the name
+SimpleSet[] simpleDependents;
+SimpleSet[] qualifiedDependents;
+
+DependentIndex(SimpleLookupTable references) {
+	this.simpleDependents = new SimpleSet[31];
+	this.qualifiedDependents = new SimpleSet[31];
+	Object[] keyTable = references.keyTable;
+	Object[] valueTable = references.valueTable;
+	for (int i = 0, l = keyTable.length; i < l; i++)
+		if (keyTable[i] != null)
+			add((String) keyTable[i], (ReferenceCollection) valueTable[i]);
+}
+
+void add(String typeLocator, ReferenceCollection collection) {
+	int[] ids = ReferenceCollection.decodeIds(collection.qualifiedNameIds);
+	for (int i = 0, l = ids.length; i < l; i++)
+		this.qualifiedDependents = add(this.qualifiedDependents, ids[i], typeLocator);
+	ids = ReferenceCollection.decodeIds(collection.simpleNameIds);
+	for (int i = 0, l = ids.length; i < l; i++)
+		this.simpleDependents = add(this.simpleDependents, ids[i], typeLocator);
+}
+
+private static SimpleSet[] add(SimpleSet[] dependents, int id, String typeLocator) {
+	int length = dependents.length;
+	if (id >= length)
+		System.arraycopy(dependents, 0, dependents = new SimpleSet[Math.max(id + 1, length * 2)], 0, length);
+	SimpleSet locators = dependents[id];
+	if (locators == null)
+		dependents[id] = locators = new SimpleSet(3);
+	locators.add(typeLocator);
+	return dependents;
+}
+
+void remove(String typeLocator, ReferenceCollection collection) {
+	int[] ids = ReferenceCollection.decodeIds(collection.qualifiedNameIds);
+	for (int i = 0, l = ids.length; i < l; i++)
+		remove(this.qualifiedDependents, ids[i], typeLocator);
+	ids = ReferenceCollection.decodeIds(collection.simpleNameIds);
+	for (int i = 0, l = ids.length; i < l; i++)
+		remove(this.simpleDependents, ids[i], typeLocator);
+}
+
+private static void remove(SimpleSet[] dependents, int id, String typeLocator) {
+	SimpleSet locators = id < dependents.length ? dependents[id] : null;
+	if (locators == null) return;
+	locators.remove(typeLocator);
+	if (locators.elementSize == 0)
+		dependents[id] = null;
+}
+
+/*
+ * Answers the type locators whose collection may include the given names, see ReferenceCollection#includes().
+ * Since a collection must reference one of the simple names to include the names, only the dependents of
+ * the simple names are answered unless they contained a well known name.
+ * Answers null if both collections of names contained a well known name, ie. when every collection includes them.
+ */
+SimpleSet findDependents(int[] qualifiedIds, int[] singleSegmentIds, int[] simpleIds) {
+	if (simpleIds == null && qualifiedIds == null) return null;
+
+	SimpleSet result = new SimpleSet();
+	if (simpleIds != null) {
+		addDependents(this.simpleDependents, simpleIds, result);
+	} else {
+		addDependents(this.qualifiedDependents, qualifiedIds, result);
+		addDependents(this.simpleDependents, singleSegmentIds, result);
+	}
+	return result;
+}
+
+private static void addDependents(SimpleSet[] dependents, int[] ids, SimpleSet result) {
+	for (int i = 0, l = ids.length; i < l; i++) {
+		SimpleSet locators = ids[i] < dependents.length ? dependents[ids[i]] : null;
+		if (locators == null) continue;
+		Object[] values = locators.values;
+		for (int j = 0, m = values.length; j < m; j++)
+			if (values[j] != null)
+				result.add(values[j]);
+	}
+}
+
+public String toString() {
+	int simpleCount = 0;
+	for (int i = 0, l = this.simpleDependents.length; i < l; i++)
+		if (this.simpleDependents[i] != null) simpleCount++;
+	int qualifiedCount = 0;
+	for (int i = 0, l = this.qualifiedDependents.length; i < l; i++)
+		if (this.qualifiedDependents[i] != null) qualifiedCount++;
+	return "DependentIndex of " + simpleCount + " simple names and " //$NON-NLS-1$ //$NON-NLS-2$
+		+ qualifiedCount + " qualified names"; //$NON-NLS-1$
+}
+}
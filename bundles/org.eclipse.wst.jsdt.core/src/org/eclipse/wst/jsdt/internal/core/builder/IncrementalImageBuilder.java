@@ -28,6 +28,7 @@ import org.eclipse.wst.jsdt.core.compiler.CategorizedProblem;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
 import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSet;
 import org.eclipse.wst.jsdt.internal.core.util.Messages;
 import org.eclipse.wst.jsdt.internal.core.util.Util;
 
@@ -196,14 +197,26 @@ protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSe
 	if (internedSimpleNames.length < simpleSet.elementSize)
 		internedSimpleNames = null;
 
-	Object[] keyTable = newState.references.keyTable;
-	Object[] valueTable = newState.references.valueTable;
-	next : for (int i = 0, l = valueTable.length; i < l; i++) {
-		String typeLocator = (String) keyTable[i];
+	// the collections only know the ids of their names in the dictionary of the state
+	NameDictionary names = newState.names;
+	int[] qualifiedIds = internedQualifiedNames == null ? null : names.findQualifiedIds(internedQualifiedNames, false);
+	int[] singleSegmentIds = internedQualifiedNames == null ? null : names.findQualifiedIds(internedQualifiedNames, true);
+	int[] simpleIds = internedSimpleNames == null ? null : names.findSimpleIds(internedSimpleNames);
+
+	// only the collections referencing one of the names can include them, unless a well known name changed
+	long start = JavaBuilder.DEBUG ? System.currentTimeMillis() : 0;
+	SimpleSet dependents = newState.getDependents().findDependents(qualifiedIds, singleSegmentIds, simpleIds);
+	Object[] candidates = dependents == null ? newState.references.keyTable : dependents.values;
+	if (JavaBuilder.DEBUG)
+		System.out.println("  checking " + (dependents == null ? newState.references.elementSize : dependents.elementSize) //$NON-NLS-1$
+			+ " of " + newState.references.elementSize + " source files for dependents, found in " //$NON-NLS-1$ //$NON-NLS-2$
+			+ (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$
+	next : for (int i = 0, l = candidates.length; i < l; i++) {
+		String typeLocator = (String) candidates[i];
 		if (typeLocator != null) {
 			if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue next;
-			ReferenceCollection refs = (ReferenceCollection) valueTable[i];
-			if (refs.includes(internedQualifiedNames, internedSimpleNames)) {
+			ReferenceCollection refs = (ReferenceCollection) newState.references.get(typeLocator);
+			if (refs != null && refs.includes(qualifiedIds, singleSegmentIds, simpleIds)) {
 				IFile file = javaBuilder.currentProject.getFile(typeLocator);
 				SourceFile sourceFile = findSourceFile(file, true);
 				if (sourceFile == null) continue next;
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.builder;
+
+import java.util.Arrays;
+
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
+
+/**
+ * Numbers the interned names referenced by the source files of a project, so that a ReferenceCollection
+ * only keeps the ids of its names. Ids are never reused, the dictionary of a state is shared by the
+ * states copied from it and is written with them, possibly while a build numbers new names.
+ */
+class NameDictionary {
+
+// interned simple names 'X' and qualified names {'p1', 'p2'} by id
+char[][] simpleNames;
+int simpleNameCount;
+char[][][] qualifiedNames;
+int qualifiedNameCount;
+
+// keyed by the interned name, value is its Integer id
+private SimpleLookupTable simpleIds;
+private SimpleLookupTable qualifiedIds;
+
+NameDictionary() {
+	this(new char[31][], 0, new char[31][][], 0);
+}
+
+NameDictionary(char[][] simpleNames, int simpleNameCount, char[][][] qualifiedNames, int qualifiedNameCount) {
+	this.simpleNames = simpleNames;
+	this.simpleNameCount = simpleNameCount;
+	this.qualifiedNames = qualifiedNames;
+	this.qualifiedNameCount = qualifiedNameCount;
+	this.simpleIds = new SimpleLookupTable(Math.max(simpleNameCount, 31));
+	for (int i = 0; i < simpleNameCount; i++)
+		this.simpleIds.put(simpleNames[i], new Integer(i));
+	this.qualifiedIds = new SimpleLookupTable(Math.max(qualifiedNameCount, 31));
+	for (int i = 0; i < qualifiedNameCount; i++)
+		this.qualifiedIds.put(qualifiedNames[i], new Integer(i));
+}
+
+/*
+ * Answers the id of the given interned simple name, numbering it if it is new.
+ */
+synchronized int simpleId(char[] internedName) {
+	Integer id = (Integer) this.simpleIds.get(internedName);
+	if (id != null) return id.intValue();
+	if (this.simpleNameCount == this.simpleNames.length)
+		System.arraycopy(this.simpleNames, 0, this.simpleNames = new char[this.simpleNameCount * 2 + 1][], 0, this.simpleNameCount);
+	this.simpleNames[this.simpleNameCount] = internedName;
+	this.simpleIds.put(internedName, new Integer(this.simpleNameCount));
+	return this.simpleNameCount++;
+}
+
+/*
+ * Answers the id of the given interned qualified name, numbering it and its segments if it is new.
+ */
+synchronized int qualifiedId(char[][] internedName) {
+	Integer id = (Integer) this.qualifiedIds.get(internedName);
+	if (id != null) return id.intValue();
+	for (int i = 0, l = internedName.length; i < l; i++)
+		simpleId(internedName[i]); // so that the qualified name can be written as simple name ids
+	if (this.qualifiedNameCount == this.qualifiedNames.length)
+		System.arraycopy(this.qualifiedNames, 0, this.qualifiedNames = new char[this.qualifiedNameCount * 2 + 1][][], 0, this.qualifiedNameCount);
+	this.qualifiedNames[this.qualifiedNameCount] = internedName;
+	this.qualifiedIds.put(internedName, new Integer(this.qualifiedNameCount));
+	return this.qualifiedNameCount++;
+}
+
+/*
+ * Answers the sorted ids of the given interned simple names, skipping the names which were never numbered
+ * since no collection can reference them.
+ */
+synchronized int[] findSimpleIds(char[][] internedNames) {
+	int[] ids = new int[internedNames.length];
+	int count = 0;
+	for (int i = 0, l = internedNames.length; i < l; i++) {
+		Integer id = (Integer) this.simpleIds.get(internedNames[i]);
+		if (id != null)
+			ids[count++] = id.intValue();
+	}
+	return sortedIds(ids, count);
+}
+
+/*
+ * Answers the sorted ids of the given interned qualified names which have more than one segment when
+ * singleSegment is false, or of the simple names of the qualified names with a single segment otherwise.
+ */
+synchronized int[] findQualifiedIds(char[][][] internedNames, boolean singleSegment) {
+	int[] ids = new int[internedNames.length];
+	int count = 0;
+	for (int i = 0, l = internedNames.length; i < l; i++) {
+		char[][] qualifiedName = internedNames[i];
+		if ((qualifiedName.length == 1) != singleSegment) continue;
+		Integer id = singleSegment
+			? (Integer) this.simpleIds.get(qualifiedName[0])
+			: (Integer) this.qualifiedIds.get(qualifiedName);
+		if (id != null)
+			ids[count++] = id.intValue();
+	}
+	return sortedIds(ids, count);
+}
+
+private static int[] sortedIds(int[] ids, int count) {
+	if (count < ids.length)
+		System.arraycopy(ids, 0, ids = new int[count], 0, count);
+	Arrays.sort(ids);
+	return ids;
+}
+
+public synchronized String toString() {
+	return "NameDictionary with " + this.simpleNameCount + " simple names and " //$NON-NLS-1$ //$NON-NLS-2$
+		+ this.qualifiedNameCount + " qualified names"; //$NON-NLS-1$
+}
+}
@@ -11,20 +11,41 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core.builder;
 
+import java.util.Arrays;
+
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
 import org.eclipse.wst.jsdt.internal.compiler.lookup.TypeConstants;
 
 public class ReferenceCollection {
 
-char[][][] qualifiedNameReferences; // contains no simple names as in just 'a' which is kept in simpleNameReferences instead
-char[][] simpleNameReferences;
+// the sorted ids of the referenced names in the NameDictionary of the state, encoded by encodeIds()
+// never changed once the collection is recorded, since it can be shared by several states, see State#copyFrom()
+final byte[] qualifiedNameIds; // contains no simple names as in just 'a' which is kept in simpleNameIds instead
+final byte[] simpleNameIds;
+
+protected ReferenceCollection(char[][][] qualifiedNameReferences, char[][] simpleNameReferences, NameDictionary names) {
+	char[][][] qualifiedNames = internQualifiedNames(qualifiedNameReferences);
+	int[] ids = new int[qualifiedNames.length];
+	for (int i = 0, l = qualifiedNames.length; i < l; i++)
+		ids[i] = names.qualifiedId(qualifiedNames[i]);
+	this.qualifiedNameIds = encodeIds(ids, ids.length);
+
+	char[][] simpleNames = internSimpleNames(simpleNameReferences, true);
+	ids = new int[simpleNames.length];
+	for (int i = 0, l = simpleNames.length; i < l; i++)
+		ids[i] = names.simpleId(simpleNames[i]);
+	this.simpleNameIds = encodeIds(ids, ids.length);
+}
 
-protected ReferenceCollection(char[][][] qualifiedNameReferences, char[][] simpleNameReferences) {
-	this.qualifiedNameReferences = internQualifiedNames(qualifiedNameReferences);
-	this.simpleNameReferences = internSimpleNames(simpleNameReferences, true);
+protected ReferenceCollection(byte[] qualifiedNameIds, byte[] simpleNameIds) {
+	this.qualifiedNameIds = qualifiedNameIds;
+	this.simpleNameIds = simpleNameIds;
 }
 
-void addDependencies(String[] typeNameDependencies) {
+/*
+ * Answers a copy of this collection which also references the given type names.
+ */
+ReferenceCollection addDependencies(String[] typeNameDependencies, NameDictionary names) {
 	// if each qualified type name is already known then all of its subNames can be skipped
 	// and its expected that very few qualified names in typeNameDependencies need to be added
 	// but could always take 'p1.p2.p3.X' and make all qualified names 'p1' 'p1.p2' 'p1.p2.p3' 'p1.p2.p3.X', then intern
@@ -33,17 +54,23 @@ void addDependencies(String[] typeNameDependencies) {
 		qNames[i] = CharOperation.splitOn('.', typeNameDependencies[i].toCharArray());
 	qNames = internQualifiedNames(qNames);
 
+	int[] qualifiedIds = decodeIds(this.qualifiedNameIds);
+	int qualifiedCount = qualifiedIds.length;
+	int[] simpleIds = decodeIds(this.simpleNameIds);
+	int simpleCount = simpleIds.length;
 	next : for (int i = qNames.length; --i >= 0;) {
 		char[][] qualifiedTypeName = qNames[i];
-		while (!includes(qualifiedTypeName)) {
-			if (!includes(qualifiedTypeName[qualifiedTypeName.length - 1])) {
-				int length = this.simpleNameReferences.length;
-				System.arraycopy(this.simpleNameReferences, 0, this.simpleNameReferences = new char[length + 1][], 0, length);
-				this.simpleNameReferences[length] = qualifiedTypeName[qualifiedTypeName.length - 1];
+		int qualifiedId;
+		while (!contains(qualifiedIds, qualifiedCount, qualifiedId = names.qualifiedId(qualifiedTypeName))) {
+			int simpleId = names.simpleId(qualifiedTypeName[qualifiedTypeName.length - 1]);
+			if (!contains(simpleIds, simpleCount, simpleId)) {
+				if (simpleCount == simpleIds.length)
+					System.arraycopy(simpleIds, 0, simpleIds = new int[simpleCount * 2 + 1], 0, simpleCount);
+				simpleIds[simpleCount++] = simpleId;
 			}
-			int length = this.qualifiedNameReferences.length;
-			System.arraycopy(this.qualifiedNameReferences, 0, this.qualifiedNameReferences = new char[length + 1][][], 0, length);
-			this.qualifiedNameReferences[length] = qualifiedTypeName;
+			if (qualifiedCount == qualifiedIds.length)
+				System.arraycopy(qualifiedIds, 0, qualifiedIds = new int[qualifiedCount * 2 + 1], 0, qualifiedCount);
+			qualifiedIds[qualifiedCount++] = qualifiedId;
 
 			qualifiedTypeName = CharOperation.subarray(qualifiedTypeName, 0, qualifiedTypeName.length - 1);
 			char[][][] temp = internQualifiedNames(new char[][][] {qualifiedTypeName});
@@ -52,64 +79,135 @@ void addDependencies(String[] typeNameDependencies) {
 			qualifiedTypeName = temp[0];
 		}
 	}
+	return copy(encodeIds(qualifiedIds, qualifiedCount), encodeIds(simpleIds, simpleCount));
 }
 
-boolean includes(char[] simpleName) {
-	for (int i = 0, l = simpleNameReferences.length; i < l; i++)
-		if (simpleName == simpleNameReferences[i]) return true;
-	return false;
+ReferenceCollection copy(byte[] newQualifiedNameIds, byte[] newSimpleNameIds) {
+	return new ReferenceCollection(newQualifiedNameIds, newSimpleNameIds);
 }
 
-boolean includes(char[][] qualifiedName) {
-	for (int i = 0, l = qualifiedNameReferences.length; i < l; i++)
-		if (qualifiedName == qualifiedNameReferences[i]) return true;
+private static boolean contains(int[] ids, int count, int id) {
+	for (int i = 0; i < count; i++)
+		if (ids[i] == id) return true;
 	return false;
 }
 
-boolean includes(char[][][] qualifiedNames, char[][] simpleNames) {
+/*
+ * Answers whether this collection references one of the given names, as in includes(char[][][], char[][]).
+ * The ids are sorted ids of the NameDictionary of the state, see NameDictionary#findQualifiedIds() and findSimpleIds().
+ * If either qualifiedIds or simpleIds is null, it means the names contained a well known name.
+ *
+ * @param qualifiedIds the ids of the qualified names with more than one segment
+ * @param singleSegmentIds the simple name ids of the qualified names with a single segment
+ * @param simpleIds the ids of the simple names
+ */
+boolean includes(int[] qualifiedIds, int[] singleSegmentIds, int[] simpleIds) {
 	// if either collection of names is null, it means it contained a well known name so we know it already has a match
-	if (simpleNames == null || qualifiedNames == null) {
-		if (simpleNames == null && qualifiedNames == null) {
-			if (JavaBuilder.DEBUG)
-				System.out.println("Found well known match"); //$NON-NLS-1$
-			return true;
-		} else if (qualifiedNames == null) {
-			for (int i = 0, l = simpleNames.length; i < l; i++) {
-				if (includes(simpleNames[i])) {
-					if (JavaBuilder.DEBUG)
-						System.out.println("Found match in well known package to " + new String(simpleNames[i])); //$NON-NLS-1$
-					return true;
-				}
-			}
-		} else {
-			for (int i = 0, l = qualifiedNames.length; i < l; i++) {
-				char[][] qualifiedName = qualifiedNames[i];
-				if (qualifiedName.length == 1 ? includes(qualifiedName[0]) : includes(qualifiedName)) {
-					if (JavaBuilder.DEBUG)
-						System.out.println("Found well known match in " + CharOperation.toString(qualifiedName)); //$NON-NLS-1$
-					return true;
-				}
-			}
-		}
-	} else {
-		for (int i = 0, l = simpleNames.length; i < l; i++) {
-			if (includes(simpleNames[i])) {
-				for (int j = 0, m = qualifiedNames.length; j < m; j++) {
-					char[][] qualifiedName = qualifiedNames[j];
-					if (qualifiedName.length == 1 ? includes(qualifiedName[0]) : includes(qualifiedName)) {
-						if (JavaBuilder.DEBUG)
-							System.out.println("Found match in " + CharOperation.toString(qualifiedName) //$NON-NLS-1$
-								+ " to " + new String(simpleNames[i])); //$NON-NLS-1$
-						return true;
-					}
-				}
-				return false;
-			}
-		}
+	if (simpleIds == null && qualifiedIds == null) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Found well known match"); //$NON-NLS-1$
+		return true;
+	}
+	if (simpleIds != null && !includesAny(this.simpleNameIds, simpleIds))
+		return false;
+	if (qualifiedIds != null && !includesAny(this.qualifiedNameIds, qualifiedIds) && !includesAny(this.simpleNameIds, singleSegmentIds))
+		return false;
+	if (JavaBuilder.DEBUG)
+		System.out.println("Found match in " + this); //$NON-NLS-1$
+	return true;
+}
+
+/*
+ * Answers whether the encoded sorted ids contain one of the given sorted ids, walking both at once.
+ */
+private static boolean includesAny(byte[] encodedIds, int[] ids) {
+	int length = ids.length;
+	if (length == 0) return false;
+	int index = 0;
+	int position = 0;
+	int id = 0;
+	for (int end = encodedIds.length; position < end;) {
+		int delta = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = encodedIds[position++];
+			delta |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		id += delta;
+		while (ids[index] < id)
+			if (++index == length) return false;
+		if (ids[index] == id) return true;
 	}
 	return false;
 }
 
+/*
+ * Encodes the given ids sorted and without duplicates, as the variable length differences between consecutive ids.
+ */
+static byte[] encodeIds(int[] ids, int count) {
+	if (count == 0) return EmptyIds;
+	int[] sorted = new int[count];
+	System.arraycopy(ids, 0, sorted, 0, count);
+	Arrays.sort(sorted);
+	byte[] bytes = new byte[count * 5];
+	int position = 0;
+	int previous = 0;
+	for (int i = 0; i < count; i++) {
+		int delta = sorted[i] - previous;
+		if (i > 0 && delta == 0) continue; // duplicate
+		previous = sorted[i];
+		while ((delta & ~0x7F) != 0) {
+			bytes[position++] = (byte) (delta | 0x80);
+			delta >>>= 7;
+		}
+		bytes[position++] = (byte) delta;
+	}
+	System.arraycopy(bytes, 0, bytes = new byte[position], 0, position);
+	return bytes;
+}
+
+static int[] decodeIds(byte[] encodedIds) {
+	int[] ids = new int[encodedIds.length]; // at least one byte per id
+	int count = 0;
+	int id = 0;
+	for (int position = 0, end = encodedIds.length; position < end;) {
+		int delta = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = encodedIds[position++];
+			delta |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		ids[count++] = id += delta;
+	}
+	if (count < ids.length)
+		System.arraycopy(ids, 0, ids = new int[count], 0, count);
+	return ids;
+}
+
+char[][][] getQualifiedNameReferences(NameDictionary names) {
+	int[] ids = decodeIds(this.qualifiedNameIds);
+	char[][][] result = new char[ids.length][][];
+	for (int i = 0, l = ids.length; i < l; i++)
+		result[i] = names.qualifiedNames[ids[i]];
+	return result;
+}
+
+char[][] getSimpleNameReferences(NameDictionary names) {
+	int[] ids = decodeIds(this.simpleNameIds);
+	char[][] result = new char[ids.length][];
+	for (int i = 0, l = ids.length; i < l; i++)
+		result[i] = names.simpleNames[ids[i]];
+	return result;
+}
+
+public String toString() {
+	return "ReferenceCollection with " + this.qualifiedNameIds.length + " bytes of qualified name ids and " //$NON-NLS-1$ //$NON-NLS-2$
+		+ this.simpleNameIds.length + " bytes of simple name ids"; //$NON-NLS-1$
+}
 
 // When any type is compiled, its methods are verified for certain problems
 // the MethodVerifier requests 3 well known types which end up in the reference collection
@@ -136,6 +234,7 @@ static final char[][] WellKnownSimpleNames = new char[][] {
 
 static final char[][][] EmptyQualifiedNames = new char[0][][];
 static final char[][] EmptySimpleNames = CharOperation.NO_CHAR_CHAR;
+static final byte[] EmptyIds = new byte[0];
 
 // each array contains qualified char[][], one for size 2, 3, 4, 5, 6, 7 & the rest
 static final int MaxQualifiedNames = 7;
@@ -38,6 +38,10 @@ ClasspathMultiDirectory[] sourceLocations;
 ClasspathLocation[] binaryLocations;
 // keyed by the project relative path of the type (ie. "src1/p1/p2/A.js"), value is a ReferenceCollection or an AdditionalTypeCollection
 SimpleLookupTable references;
+// numbers the names referenced by the ReferenceCollections, shared with the states copied from this one
+NameDictionary names;
+// the type locators referencing each name, built when first needed and handed over to the state copied from this one
+private DependentIndex dependents;
 // keyed by qualified type name "p1/p2/A", value is the project relative path which defines this type "src1/p1/p2/A.js"
 public SimpleLookupTable typeLocators;
 
@@ -51,7 +55,7 @@ private long previousStructuralBuildTime;
 private StringSet structurallyChangedTypes;
 public static int MaxStructurallyChangedTypes = 100; // keep track of ? structurally changed types, otherwise consider all to be changed
 
-public static final byte VERSION = 0x0015; // changed access rule presentation
+public static final byte VERSION = 0x0016; // compact reference collections
 
 static final byte SOURCE_FOLDER = 1;
 static final byte BINARY_FOLDER = 2;
@@ -71,6 +75,7 @@ protected State(JavaBuilder javaBuilder) {
 	this.sourceLocations = javaBuilder.nameEnvironment.sourceLocations;
 	this.binaryLocations = javaBuilder.nameEnvironment.binaryLocations;
 	this.references = new SimpleLookupTable(7);
+	this.names = new NameDictionary();
 	this.typeLocators = new SimpleLookupTable(7);
 
 	this.buildNumber = 0; // indicates a full build
@@ -92,6 +97,10 @@ void copyFrom(State lastState) {
 	this.buildNumber = lastState.buildNumber + 1;
 	this.lastStructuralBuildTime = lastState.lastStructuralBuildTime;
 	this.structuralBuildTimes = lastState.structuralBuildTimes;
+	this.names = lastState.names;
+	// the last state is no longer used to find affected source files once a build started from it
+	this.dependents = lastState.dependents;
+	lastState.dependents = null;
 
 	try {
 		this.references = (SimpleLookupTable) lastState.references.clone();
@@ -166,15 +175,40 @@ boolean isKnownType(String qualifiedTypeName) {
 void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, char[] mainTypeName, ArrayList typeNames) {
 	if (typeNames==null)
 		typeNames=new ArrayList();
+	ReferenceCollection collection;
 	if (typeNames.size() == 1 && CharOperation.equals(mainTypeName, (char[]) typeNames.get(0))) {
-		references.put(typeLocator, new ReferenceCollection(qualifiedRefs, simpleRefs));
+		collection = new ReferenceCollection(qualifiedRefs, simpleRefs, this.names);
 	} else {
 		char[][] definedTypeNames = new char[typeNames.size()][]; // can be empty when no types are defined
 		typeNames.toArray(definedTypeNames);
-		references.put(typeLocator, new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs));
+		collection = new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, this.names);
+	}
+	ReferenceCollection previous = (ReferenceCollection) references.get(typeLocator);
+	references.put(typeLocator, collection);
+	if (dependents != null) {
+		if (previous != null)
+			dependents.remove(typeLocator, previous);
+		dependents.add(typeLocator, collection);
 	}
 }
 
+void recordDependencies(String typeLocator, String[] typeNameDependencies) {
+	ReferenceCollection collection = (ReferenceCollection) references.get(typeLocator);
+	if (collection != null) {
+		// replace rather than change the collection, the state this build started from may be saved meanwhile
+		collection = collection.addDependencies(typeNameDependencies, this.names);
+		references.put(typeLocator, collection);
+		if (dependents != null)
+			dependents.add(typeLocator, collection); // the new collection only adds names to the previous one
+	}
+}
+
+DependentIndex getDependents() {
+	if (dependents == null)
+		dependents = new DependentIndex(references);
+	return dependents;
+}
+
 void recordLocatorForType(String qualifiedTypeName, String typeLocator) {
 	this.knownPackageNames = null;
 	// in the common case, the qualifiedTypeName is a substring of the typeLocator so share the char[] by using String.substring()
@@ -192,7 +226,9 @@ void recordStructuralDependency(IProject prereqProject, State prereqState) {
 
 void removeLocator(String typeLocatorToRemove) {
 	this.knownPackageNames = null;
-	references.removeKey(typeLocatorToRemove);
+	ReferenceCollection collection = (ReferenceCollection) references.removeKey(typeLocatorToRemove);
+	if (collection != null && dependents != null)
+		dependents.remove(typeLocatorToRemove, collection);
 	typeLocators.removeValue(typeLocatorToRemove);
 }
 
@@ -284,17 +320,20 @@ static State read(IProject project, DataInputStream in) throws IOException {
 	for (int i = 0; i < length; i++)
 		newState.recordLocatorForType(in.readUTF(), internedTypeLocators[in.readInt()]);
 
-	char[][] internedSimpleNames = ReferenceCollection.internSimpleNames(readNames(in), false);
-	char[][][] internedQualifiedNames = new char[length = in.readInt()][][];
+	// the interned simple names then the qualified names as arrays of simple name ids, numbered as in the dictionary
+	char[][] simpleNames = ReferenceCollection.internSimpleNames(readNames(in), false);
+	char[][][] qualifiedNames = new char[length = in.readInt()][][];
 	for (int i = 0; i < length; i++) {
 		int qLength = in.readInt();
 		char[][] qName = new char[qLength][];
 		for (int j = 0; j < qLength; j++)
-			qName[j] = internedSimpleNames[in.readInt()];
-		internedQualifiedNames[i] = qName;
+			qName[j] = simpleNames[in.readInt()];
+		char[][][] interned = ReferenceCollection.internQualifiedNames(new char[][][] {qName});
+		qualifiedNames[i] = interned.length == 0 ? qName : interned[0]; // a well known name is never referenced
 	}
-	internedQualifiedNames = ReferenceCollection.internQualifiedNames(internedQualifiedNames);
+	newState.names = new NameDictionary(simpleNames, simpleNames.length, qualifiedNames, qualifiedNames.length);
 
+	// the encoded ids of the collections are kept as read, they are only decoded when the collection changes
 	newState.references = new SimpleLookupTable(length = in.readInt());
 	for (int i = 0; i < length; i++) {
 		String typeLocator = internedTypeLocators[in.readInt()];
@@ -302,22 +341,10 @@ static State read(IProject project, DataInputStream in) throws IOException {
 		switch (in.readByte()) {
 			case 1 :
 				char[][] additionalTypeNames = readNames(in);
-				char[][][] qualifiedNames = new char[in.readInt()][][];
-				for (int j = 0, m = qualifiedNames.length; j < m; j++)
-					qualifiedNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] simpleNames = new char[in.readInt()][];
-				for (int j = 0, m = simpleNames.length; j < m; j++)
-					simpleNames[j] = internedSimpleNames[in.readInt()];
-				collection = new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames);
+				collection = new AdditionalTypeCollection(additionalTypeNames, readIds(in), readIds(in));
 				break;
 			case 2 :
-				char[][][] qNames = new char[in.readInt()][][];
-				for (int j = 0, m = qNames.length; j < m; j++)
-					qNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] sNames = new char[in.readInt()][];
-				for (int j = 0, m = sNames.length; j < m; j++)
-					sNames[j] = internedSimpleNames[in.readInt()];
-				collection = new ReferenceCollection(qNames, sNames);
+				collection = new ReferenceCollection(readIds(in), readIds(in));
 		}
 		newState.references.put(typeLocator, collection);
 	}
@@ -326,6 +353,14 @@ static State read(IProject project, DataInputStream in) throws IOException {
 	return newState;
 }
 
+private static byte[] readIds(DataInputStream in) throws IOException {
+	int length = in.readInt();
+	if (length == 0) return ReferenceCollection.EmptyIds;
+	byte[] ids = new byte[length];
+	in.readFully(ids);
+	return ids;
+}
+
 private static char[] readName(DataInputStream in) throws IOException {
 	int nLength = in.readInt();
 	char[] name = new char[nLength];
@@ -514,108 +549,61 @@ void write(DataOutputStream out) throws IOException {
 	}
 
 /*
- * char[][][]	Interned qualified names
- * char[][]	Interned simple names
+ * char[][]	Simple names of the dictionary
+ * int[][]		Qualified names of the dictionary, as arrays of simple name ids
  */
-	SimpleLookupTable internedQualifiedNames = new SimpleLookupTable(31);
-	SimpleLookupTable internedSimpleNames = new SimpleLookupTable(31);
-	valueTable = references.valueTable;
-	for (int i = 0, l = valueTable.length; i < l; i++) {
-		if (valueTable[i] != null) {
-			ReferenceCollection collection = (ReferenceCollection) valueTable[i];
-			char[][][] qNames = collection.qualifiedNameReferences;
-			for (int j = 0, m = qNames.length; j < m; j++) {
-				char[][] qName = qNames[j];
-				if (!internedQualifiedNames.containsKey(qName)) { // remember the names have been interned
-					internedQualifiedNames.put(qName, new Integer(internedQualifiedNames.elementSize));
-					for (int k = 0, n = qName.length; k < n; k++) {
-						char[] sName = qName[k];
-						if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-							internedSimpleNames.put(sName, new Integer(internedSimpleNames.elementSize));
-					}
-				}
-			}
-			char[][] sNames = collection.simpleNameReferences;
-			for (int j = 0, m = sNames.length; j < m; j++) {
-				char[] sName = sNames[j];
-				if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-					internedSimpleNames.put(sName, new Integer(internedSimpleNames.elementSize));
-			}
-		}
-	}
-	char[][] internedArray = new char[internedSimpleNames.elementSize][];
-	Object[] simpleNames = internedSimpleNames.keyTable;
-	Object[] positions = internedSimpleNames.valueTable;
-	for (int i = positions.length; --i >= 0; ) {
-		if (positions[i] != null) {
-			int index = ((Integer) positions[i]).intValue();
-			internedArray[index] = (char[]) simpleNames[i];
-		}
-	}
-	writeNames(internedArray, out);
-	// now write the interned qualified names as arrays of interned simple names
-	char[][][] internedQArray = new char[internedQualifiedNames.elementSize][][];
-	Object[] qualifiedNames = internedQualifiedNames.keyTable;
-	positions = internedQualifiedNames.valueTable;
-	for (int i = positions.length; --i >= 0; ) {
-		if (positions[i] != null) {
-			int index = ((Integer) positions[i]).intValue();
-			internedQArray[index] = (char[][]) qualifiedNames[i];
-		}
-	}
-	out.writeInt(length = internedQArray.length);
-	for (int i = 0; i < length; i++) {
-		char[][] qName = internedQArray[i];
-		int qLength = qName.length;
-		out.writeInt(qLength);
-		for (int j = 0; j < qLength; j++) {
-			Integer index = (Integer) internedSimpleNames.get(qName[j]);
-			out.writeInt(index.intValue());
+	synchronized (names) { // a build may number new names meanwhile, the collections must only use the names written
+		char[][] simpleNames = new char[length = names.simpleNameCount][];
+		System.arraycopy(names.simpleNames, 0, simpleNames, 0, length);
+		writeNames(simpleNames, out);
+		out.writeInt(length = names.qualifiedNameCount);
+		for (int i = 0; i < length; i++) {
+			char[][] qName = names.qualifiedNames[i];
+			int qLength = qName.length;
+			out.writeInt(qLength);
+			for (int j = 0; j < qLength; j++)
+				out.writeInt(names.simpleId(qName[j])); // the segments were numbered with their qualified name
 		}
-	}
 
 /*
  * References table
  * int		interned locator id
  * ReferenceCollection
+ * byte[]	encoded qualified name ids
+ * byte[]	encoded simple name ids
 */
-	out.writeInt(length = references.elementSize);
-	if (length > 0) {
-		keyTable = references.keyTable;
-		for (int i = 0, l = keyTable.length; i < l; i++) {
-			if (keyTable[i] != null) {
-				length--;
-				Integer index = (Integer) internedTypeLocators.get(keyTable[i]);
-				out.writeInt(index.intValue());
-				ReferenceCollection collection = (ReferenceCollection) valueTable[i];
-				if (collection instanceof AdditionalTypeCollection) {
-					out.writeByte(1);
-					AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
-					writeNames(atc.definedTypeNames, out);
-				} else {
-					out.writeByte(2);
-				}
-				char[][][] qNames = collection.qualifiedNameReferences;
-				int qLength = qNames.length;
-				out.writeInt(qLength);
-				for (int j = 0; j < qLength; j++) {
-					index = (Integer) internedQualifiedNames.get(qNames[j]);
-					out.writeInt(index.intValue());
-				}
-				char[][] sNames = collection.simpleNameReferences;
-				int sLength = sNames.length;
-				out.writeInt(sLength);
-				for (int j = 0; j < sLength; j++) {
-					index = (Integer) internedSimpleNames.get(sNames[j]);
+		out.writeInt(length = references.elementSize);
+		if (length > 0) {
+			keyTable = references.keyTable;
+			valueTable = references.valueTable;
+			for (int i = 0, l = keyTable.length; i < l; i++) {
+				if (keyTable[i] != null) {
+					length--;
+					Integer index = (Integer) internedTypeLocators.get(keyTable[i]);
 					out.writeInt(index.intValue());
+					ReferenceCollection collection = (ReferenceCollection) valueTable[i];
+					if (collection instanceof AdditionalTypeCollection) {
+						out.writeByte(1);
+						AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
+						writeNames(atc.definedTypeNames, out);
+					} else {
+						out.writeByte(2);
+					}
+					writeIds(collection.qualifiedNameIds, out);
+					writeIds(collection.simpleNameIds, out);
 				}
 			}
+			if (JavaBuilder.DEBUG && length != 0)
+				System.out.println("references table is inconsistent"); //$NON-NLS-1$
 		}
-		if (JavaBuilder.DEBUG && length != 0)
-			System.out.println("references table is inconsistent"); //$NON-NLS-1$
 	}
 }
 
+private void writeIds(byte[] ids, DataOutputStream out) throws IOException {
+	out.writeInt(ids.length);
+	out.write(ids);
+}
+
 private void writeName(char[] name, DataOutputStream out) throws IOException {
 	int nLength = name.length;
 	out.writeInt(nLength);
@@ -701,13 +689,13 @@ void dump() {
 			if (keyTable[i] != null) {
 				System.out.print("\n\t\t" + keyTable[i].toString());
 				ReferenceCollection c = (ReferenceCollection) valueTable[i];
-				char[][][] qRefs = c.qualifiedNameReferences;
+				char[][][] qRefs = c.getQualifiedNameReferences(names);
 				System.out.print("\n\t\t\tqualified:");
 				if (qRefs.length == 0)
 					System.out.print(" <empty>");
 				else for (int j = 0, m = qRefs.length; j < m; j++)
 						System.out.print("  '" + CharOperation.toString(qRefs[j]) + "'");
-				char[][] sRefs = c.simpleNameReferences;
+				char[][] sRefs = c.getSimpleNameReferences(names);
 				System.out.print("\n\t\t\tsimple:");
 				if (sRefs.length == 0)
 					System.out.print(" <empty>");
@@ -16,16 +16,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
-import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
 import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ScannerHelper;
 import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfIntValues;
 import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSet;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSetOfCharArray;
-import org.eclipse.wst.jsdt.internal.core.Logger;
 import org.eclipse.wst.jsdt.internal.core.util.Messages;
 import org.eclipse.wst.jsdt.internal.core.util.SimpleWordSet;
 import org.eclipse.wst.jsdt.internal.core.util.Util;
@@ -38,16 +39,11 @@ private int headerInfoOffset;
 private int numberOfChunks;
 private int sizeOfLastChunk;
 private int[] chunkOffsets;
-private int documentReferenceSize; // 1, 2 or more bytes... depends on # of document names
 private int startOfCategoryTables;
 private HashtableOfIntValues categoryOffsets, categoryEnds;
 
-private volatile int cacheUserCount;
-private String[][] cachedChunks; // decompressed chunks of document names
-private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s) or offset if not read yet
-private char[] cachedCategoryName;
-
-private Object fStopQueryAction;
+// decoded category tables & chunks of document names are kept in the DiskIndexCache shared by all indexes
+private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s), only used while writing the index
 
 private static final int DEFAULT_BUFFER_SIZE = 2048;
 private static int BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
@@ -55,11 +51,20 @@ private static final int BUFFER_WRITE_SIZE = DEFAULT_BUFFER_SIZE;
 private byte[] streamBuffer;
 private int bufferIndex, bufferEnd; // used when reading from the file into the streamBuffer
 private int streamEnd; // used when writing data from the streamBuffer to the file
+private volatile ByteBuffer mappedBuffer; // read-only mapping of the whole index file, shared by all queries (see getMappedBuffer())
 
-public static final String SIGNATURE= "INDEX VERSION 1.3"; //$NON-NLS-1$
+public static final String SIGNATURE= "INDEX VERSION 1.5"; //$NON-NLS-1$
 private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 public static boolean DEBUG = false;
 
+/*
+ * When set, index files are mapped into memory once and decoded in place instead of being re-opened
+ * and streamed through the streamBuffer on every read. Can be forced on or off with the system property
+ * "org.eclipse.wst.jsdt.core.index.mapped", by default it is off on Windows since a mapped file cannot
+ * be deleted or renamed until its mapping has been garbage collected.
+ */
+public static boolean MAP_INDEX_FILES = initMapIndexFiles();
+
 private static final int RE_INDEXED = -1;
 private static final int DELETED = -2;
 
@@ -67,6 +72,13 @@ private static final int CHUNK_SIZE = 100;
 
 private static final SimpleSetOfCharArray INTERNED_CATEGORY_NAMES = new SimpleSetOfCharArray(20);
 
+// order of the words in a category table, see compareWords()
+private static final Util.Comparer WORD_COMPARER = new Util.Comparer() {
+	public int compare(Object a, Object b) {
+		return compareWords((char[]) a, (char[]) b);
+	}
+};
+
 static class IntList {
 
 int size;
@@ -91,6 +103,47 @@ int[] asArray() {
 }
 }
 
+/*
+ * The document numbers of a word, see iterateDocumentNumbers(). When they were not decoded yet and the index file
+ * is mapped, they are decoded as they are iterated instead of being read into an array first.
+ */
+static class DocumentNumbers {
+
+private int[] numbers;
+private ByteBuffer mapped;
+private int size;
+private int index;
+private int documentNumber;
+
+DocumentNumbers(int[] numbers) {
+	this.numbers = numbers;
+	this.size = numbers.length;
+}
+DocumentNumbers(ByteBuffer mapped) {
+	// positioned at the start of the document numbers, see writeDocumentNumbers()
+	this.mapped = mapped;
+	this.size = mapped.getInt();
+}
+boolean hasNext() {
+	return this.index < this.size;
+}
+int next() {
+	if (this.numbers != null)
+		return this.numbers[this.index++];
+	this.index++;
+	return this.documentNumber += readMappedVarInt(this.mapped);
+}
+int size() {
+	return this.size;
+}
+}
+
+private static boolean initMapIndexFiles() {
+	String property = System.getProperty("org.eclipse.wst.jsdt.core.index.mapped"); //$NON-NLS-1$
+	if (property != null)
+		return Boolean.valueOf(property).booleanValue();
+	return File.separatorChar != '\\';
+}
 
 DiskIndex(String fileName) {
 	if (fileName == null)
@@ -102,11 +155,7 @@ DiskIndex(String fileName) {
 	this.numberOfChunks = -1;
 	this.sizeOfLastChunk = -1;
 	this.chunkOffsets = null;
-	this.documentReferenceSize = -1;
-	this.cacheUserCount = -1;
-	this.cachedChunks = null;
 	this.categoryTables = null;
-	this.cachedCategoryName = null;
 	this.categoryOffsets = null;
 	this.categoryEnds = null;
 }
@@ -155,9 +204,9 @@ private HashtableOfObject addQueryResult(HashtableOfObject results, char[] word,
 	} else {
 		SimpleLookupTable docsToRefs = memoryIndex.docsToReferences;
 		if (result == null) result = new EntryResult(word, null);
-		int[] docNumbers = readDocumentNumbers(wordsToDocNumbers.get(word));
-		for (int i = 0, l = docNumbers.length; i < l; i++) {
-			String docName = readDocumentName(docNumbers[i]);
+		DocumentNumbers docNumbers = iterateDocumentNumbers(wordsToDocNumbers.get(word));
+		while (docNumbers.hasNext()) {
+			String docName = readDocumentName(docNumbers.next());
 			if (!docsToRefs.containsKey(docName))
 				result.addDocumentName(docName);
 		}
@@ -166,88 +215,160 @@ private HashtableOfObject addQueryResult(HashtableOfObject results, char[] word,
 	}
 	return results;
 }
-HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule, MemoryIndex memoryIndex) throws IOException {
-	// assumes sender has called startQuery() & will call stopQuery() when finished
-	if (this.categoryOffsets == null) return null; // file is empty
-
-	HashtableOfObject results = null; // initialized if needed
-	if (key == null) {
-		for (int i = 0, l = categories.length; i < l; i++) {
-			HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], true); // cache if key is null since its a definite match
-			if (wordsToDocNumbers != null) {
-				char[][] words = wordsToDocNumbers.keyTable;
-				if (results == null)
-					results = new HashtableOfObject(wordsToDocNumbers.elementSize);
-				for (int j = 0, m = words.length; j < m; j++)
-					if (words[j] != null)
-						results = addQueryResult(results, words[j], wordsToDocNumbers, memoryIndex);
-			}
-		}
-		if (results != null && this.cachedChunks == null)
-			cacheDocumentNames();
-	} else {
-		switch (matchRule) {
-			case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
-				for (int i = 0, l = categories.length; i < l; i++) {
-					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-					if (wordsToDocNumbers != null && wordsToDocNumbers.containsKey(key))
-						results = addQueryResult(results, key, wordsToDocNumbers, memoryIndex);
-				}
-				break;
-			case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
-				for (int i = 0, l = categories.length; i < l; i++) {
-					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
-							if (word != null && key[0] == word[0] && CharOperation.prefixEquals(key, word))
-								results = addQueryResult(results, word, wordsToDocNumbers, memoryIndex);
-						}
+/*
+ * Answers the results of several queries, results[i] maps the words matching the i-th query -> EntryResult
+ * or is null if the query has no matches. Each category table is read once for all the queries on it, and
+ * the queries which must check every word of the table share a single pass over its words.
+ */
+HashtableOfObject[] addQueryResults(char[][][] categories, char[][] keys, int[] matchRules, WordMatcher[] matchers, MemoryIndex memoryIndex) throws IOException {
+	int length = keys.length;
+	HashtableOfObject[] results = new HashtableOfObject[length]; // initialized if needed
+	if (this.categoryOffsets == null) return results; // file is empty
+
+	boolean allWordsQueried = false;
+	SimpleSetOfCharArray queriedCategories = new SimpleSetOfCharArray(3);
+	int[] scans = new int[length];
+	for (int i = 0; i < length; i++) {
+		for (int c = 0, l = categories[i].length; c < l; c++) {
+			char[] categoryName = categories[i][c];
+			if (queriedCategories.includes(categoryName)) continue; // already answered for every query on it
+			queriedCategories.add(categoryName);
+
+			boolean readDocNumbers = false; // cache if a key is null since its a definite match
+			for (int j = i; j < length && !readDocNumbers; j++)
+				readDocNumbers = keys[j] == null && CharOperation.contains(categoryName, categories[j]);
+			HashtableOfObject wordsToDocNumbers = readCategoryTable(categoryName, readDocNumbers);
+			if (wordsToDocNumbers == null) continue;
+
+			int scanCount = 0;
+			for (int j = i; j < length; j++) {
+				if (j > i && !CharOperation.contains(categoryName, categories[j])) continue;
+				char[] key = keys[j];
+				if (key == null) {
+					char[][] words = wordsToDocNumbers.keyTable;
+					if (results[j] == null)
+						results[j] = new HashtableOfObject(wordsToDocNumbers.elementSize);
+					for (int k = 0, m = words.length; k < m; k++)
+						if (words[k] != null)
+							results[j] = addQueryResult(results[j], words[k], wordsToDocNumbers, memoryIndex);
+					allWordsQueried = true;
+				} else if (matchRules[j] == (SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE)) {
+					if (wordsToDocNumbers.containsKey(key))
+						results[j] = addQueryResult(results[j], key, wordsToDocNumbers, memoryIndex);
+				} else if (key.length > 0 && (matchRules[j] & (SearchPattern.R_PATTERN_MATCH | SearchPattern.R_REGEXP_MATCH)) == 0) {
+					// every match starts with the key ignoring case, or with its first character for camel case matches,
+					// so only the range of sorted words starting with that prefix needs to be checked
+					int prefixLength = (matchRules[j] & SearchPattern.R_CAMELCASE_MATCH) != 0 ? 1 : key.length;
+					char[][] words = readSortedWords(categoryName, wordsToDocNumbers);
+					for (int k = findFirstWord(words, key, prefixLength), m = words.length; k < m; k++) {
+						char[] word = words[k];
+						if (word.length < prefixLength || compareWords(word, key, prefixLength) != 0)
+							break; // past the words starting with the prefix
+						if (matchers[j].matches(word))
+							results[j] = addQueryResult(results[j], word, wordsToDocNumbers, memoryIndex);
 					}
+				} else {
+					scans[scanCount++] = j;
 				}
-				break;
-			default:
-				for (int i = 0, l = categories.length; i < l; i++) {
-					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
-							if (word != null && Index.isMatch(key, word, matchRule))
-								results = addQueryResult(results, word, wordsToDocNumbers, memoryIndex);
+			}
+			if (scanCount > 0) {
+				char[][] words = wordsToDocNumbers.keyTable;
+				for (int k = 0, m = words.length; k < m; k++) {
+					char[] word = words[k];
+					if (word != null) {
+						for (int n = 0; n < scanCount; n++) {
+							int j = scans[n];
+							if (matchers[j].matches(word))
+								results[j] = addQueryResult(results[j], word, wordsToDocNumbers, memoryIndex);
 						}
 					}
 				}
+			}
 		}
 	}
-
-	if (results == null) return null;
+	if (allWordsQueried)
+		cacheDocumentNames(); // will need all document names
 	return results;
 }
-private synchronized void cacheDocumentNames() throws IOException {
+private void cacheDocumentNames() throws IOException {
 	// will need all document names so get them now
-	this.cachedChunks = new String[this.numberOfChunks][];
-	FileInputStream stream = new FileInputStream(this.indexFile);
-	try {
-		if (this.numberOfChunks > 5) BUFFER_READ_SIZE <<= 1;
-		int offset = this.chunkOffsets[0];
-		stream.skip(offset);
-		this.streamBuffer = new byte[BUFFER_READ_SIZE];
-		this.bufferIndex = 0;
-		this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
+	ByteBuffer mapped = getMappedBuffer();
+	if (mapped != null) {
 		for (int i = 0; i < this.numberOfChunks; i++) {
-			int size = i == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
-			readChunk(this.cachedChunks[i] = new String[size], stream, 0, size);
+			if (!DiskIndexCache.containsChunk(this, i)) {
+				int size = i == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
+				String[] chunk = new String[size];
+				mapped.position(this.chunkOffsets[i]);
+				readMappedChunk(chunk, mapped, 0, size);
+				DiskIndexCache.putChunk(this, i, chunk);
+			}
 		}
-	} catch (IOException e) {
-		this.cachedChunks = null;
-		throw e;
-	} finally {
-		stream.close();
-		this.streamBuffer = null;
-		BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
+		return;
+	}
+	int cached = 0;
+	while (cached < this.numberOfChunks && DiskIndexCache.containsChunk(this, cached))
+		cached++;
+	if (cached == this.numberOfChunks) return; // every chunk is already cached
+
+	String[][] chunks = new String[this.numberOfChunks][];
+	synchronized (this) { // the stream buffer cannot be shared
+		FileInputStream stream = new FileInputStream(this.indexFile);
+		try {
+			if (this.numberOfChunks > 5) BUFFER_READ_SIZE <<= 1;
+			int offset = this.chunkOffsets[0];
+			stream.skip(offset);
+			this.streamBuffer = new byte[BUFFER_READ_SIZE];
+			this.bufferIndex = 0;
+			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
+			for (int i = 0; i < this.numberOfChunks; i++) {
+				int size = i == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
+				readChunk(chunks[i] = new String[size], stream, 0, size);
+			}
+		} finally {
+			stream.close();
+			this.streamBuffer = null;
+			BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
+		}
+	}
+	for (int i = 0; i < this.numberOfChunks; i++)
+		DiskIndexCache.putChunk(this, i, chunks[i]);
+}
+/*
+ * Words are sorted by their characters ignoring case, as CharOperation.prefixEquals(prefix, name, false) compares them,
+ * then case sensitively. So the words starting with a given prefix ignoring case are next to each other.
+ */
+static int compareWords(char[] word1, char[] word2) {
+	int result = compareWords(word1, word2, word2.length);
+	if (result == 0)
+		result = word1.length - word2.length;
+	return result != 0 ? result : CharOperation.compareTo(word1, word2);
+}
+/*
+ * Compares the word with the first prefixLength characters of the key ignoring case.
+ */
+private static int compareWords(char[] word, char[] key, int prefixLength) {
+	int length = word.length < prefixLength ? word.length : prefixLength;
+	for (int i = 0; i < length; i++) {
+		char c1 = ScannerHelper.toLowerCase(word[i]);
+		char c2 = ScannerHelper.toLowerCase(key[i]);
+		if (c1 != c2)
+			return c1 - c2;
+	}
+	return word.length < prefixLength ? word.length - prefixLength : 0;
+}
+/*
+ * Answers the index of the first sorted word which is not before the first prefixLength characters of the key.
+ */
+private static int findFirstWord(char[][] sortedWords, char[] key, int prefixLength) {
+	int low = 0, high = sortedWords.length;
+	while (low < high) {
+		int middle = (low + high) >>> 1;
+		if (compareWords(sortedWords[middle], key, prefixLength) < 0)
+			low = middle + 1;
+		else
+			high = middle;
 	}
+	return low;
 }
 private String[] computeDocumentNames(String[] onDiskNames, int[] positions, SimpleLookupTable indexedDocuments, MemoryIndex memoryIndex) {
 	int onDiskLength = onDiskNames.length;
@@ -369,6 +490,31 @@ private void copyQueryResults(HashtableOfObject categoryToWords, int newPosition
 		}
 	}
 }
+/*
+ * Answers a private view onto the mapping of the index file, mapping the file the first time it is needed.
+ * The mapping is shared by every query against this index until releaseMappedBuffer() is called.
+ * Answers null if index files are not mapped.
+ */
+private ByteBuffer getMappedBuffer() throws IOException {
+	if (!MAP_INDEX_FILES) return null;
+
+	ByteBuffer buffer = this.mappedBuffer;
+	if (buffer == null) {
+		synchronized (this) {
+			if (this.mappedBuffer == null) {
+				RandomAccessFile file = new RandomAccessFile(this.indexFile, "r"); //$NON-NLS-1$
+				try {
+					FileChannel channel = file.getChannel();
+					this.mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid once the channel is closed
+				} finally {
+					file.close();
+				}
+			}
+			buffer = this.mappedBuffer;
+		}
+	}
+	return buffer.duplicate(); // each reader gets its own position
+}
 void initialize(boolean reuseExistingFile) throws IOException {
 	if (this.indexFile.exists()) {
 		if (reuseExistingFile) {
@@ -478,29 +624,42 @@ private void mergeCategory(char[] categoryName, DiskIndex onDisk, int[] position
 				}
 			}
 		}
-		onDisk.categoryTables.put(categoryName, null); // flush cached table
 	}
 	writeCategoryTable(categoryName, wordsToDocs, stream);
 }
 DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
  	// assume write lock is held
+	DiskIndex newDiskIndex = writeMergedIndex(memoryIndex, new File(this.indexFile.getPath() + ".tmp")); //$NON-NLS-1$
+	if (newDiskIndex != this) {
+		newDiskIndex.replace(this);
+		DiskIndexCache.removeAll(this);
+	}
+	return newDiskIndex;
+}
+/*
+ * Writes the merge of this index with the given memory index into the given temporary file, leaving the index
+ * file untouched so that this index can still be queried while the merge is written.
+ * Answers this index if there is nothing to merge, call replace(DiskIndex) to move the merged index in place.
+ */
+DiskIndex writeMergedIndex(MemoryIndex memoryIndex, File tempFile) throws IOException {
+	// assume read lock is held, the memory index must not change
 	// compute & write out new docNames
 	String[] docNames = readAllDocumentNames();
 	int previousLength = docNames.length;
 	int[] positions = new int[previousLength]; // keeps track of the position of each document in the new sorted docNames
 	SimpleLookupTable indexedDocuments = new SimpleLookupTable(3); // for each new/changed document in the memoryIndex
 	docNames = computeDocumentNames(docNames, positions, indexedDocuments, memoryIndex);
-	if (docNames.length == 0) {
-		if (previousLength == 0) return this; // nothing to do... memory index contained deleted documents that had never been saved
-
-		// index is now empty since all the saved documents were removed
-		DiskIndex newDiskIndex = new DiskIndex(this.indexFile.getPath());
-		newDiskIndex.initialize(false);
-		return newDiskIndex;
-	}
+	if (docNames.length == 0 && previousLength == 0)
+		return this; // nothing to do... memory index contained deleted documents that had never been saved
 
-	DiskIndex newDiskIndex = new DiskIndex(this.indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+	DiskIndex newDiskIndex = new DiskIndex(tempFile.getPath());
 	try {
+		if (docNames.length == 0) {
+			// index is now empty since all the saved documents were removed
+			newDiskIndex.initialize(false);
+			return newDiskIndex;
+		}
+
 		newDiskIndex.initializeFrom(this, newDiskIndex.indexFile);
 		FileOutputStream stream = new FileOutputStream(newDiskIndex.indexFile, false);
 		int offsetToHeader = -1;
@@ -529,74 +688,142 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 			positions = null; // free up the space
 		} finally {
 			stream.close();
-			this.streamBuffer = null;
+			newDiskIndex.streamBuffer = null; // the stream buffer of this index may be in use by a concurrent query
 		}
 		newDiskIndex.writeOffsetToHeader(offsetToHeader);
-
+	} catch (IOException e) {
+		newDiskIndex.deleteIndexFile();
+		throw e;
+	}
+	return newDiskIndex;
+}
+/*
+ * Moves the temporary file written by writeMergedIndex(MemoryIndex, File) over the file of the given index,
+ * which is no longer usable afterwards. Its cached tables are left to the caller, see DiskIndexCache.removeAll(DiskIndex).
+ */
+void replace(DiskIndex oldIndex) throws IOException {
+	// assume write lock is held
+	try {
 		// rename file by deleting previous index file & renaming temp one
-		if (this.indexFile.exists() && !this.indexFile.delete()) {
+		oldIndex.releaseMappedBuffer();
+		if (oldIndex.indexFile.exists() && !oldIndex.indexFile.delete()) {
 			if (DEBUG)
-				System.out.println("mergeWith - Failed to delete " + this.indexFile); //$NON-NLS-1$
-			throw new IOException("Failed to delete index file " + this.indexFile); //$NON-NLS-1$
+				System.out.println("mergeWith - Failed to delete " + oldIndex.indexFile); //$NON-NLS-1$
+			throw new IOException("Failed to delete index file " + oldIndex.indexFile); //$NON-NLS-1$
 		}
-		if (!newDiskIndex.indexFile.renameTo(this.indexFile)) {
+		if (!this.indexFile.renameTo(oldIndex.indexFile)) {
 			if (DEBUG)
-				System.out.println("mergeWith - Failed to rename " + this.indexFile); //$NON-NLS-1$
-			throw new IOException("Failed to rename index file " + this.indexFile); //$NON-NLS-1$
+				System.out.println("mergeWith - Failed to rename " + oldIndex.indexFile); //$NON-NLS-1$
+			throw new IOException("Failed to rename index file " + oldIndex.indexFile); //$NON-NLS-1$
 		}
 	} catch (IOException e) {
-		if (newDiskIndex.indexFile.exists() && !newDiskIndex.indexFile.delete())
-			if (DEBUG)
-				System.out.println("mergeWith - Failed to delete temp index " + newDiskIndex.indexFile); //$NON-NLS-1$
+		deleteIndexFile();
 		throw e;
 	}
-
-	newDiskIndex.indexFile = this.indexFile;
-	return newDiskIndex;
+	this.indexFile = oldIndex.indexFile;
+}
+/*
+ * Deletes the temporary file of a merge which is not moved in place.
+ */
+void deleteIndexFile() {
+	if (this.indexFile.exists() && !this.indexFile.delete())
+		if (DEBUG)
+			System.out.println("mergeWith - Failed to delete temp index " + this.indexFile); //$NON-NLS-1$
 }
-private synchronized String[] readAllDocumentNames() throws IOException {
+private String[] readAllDocumentNames() throws IOException {
 	if (this.numberOfChunks <= 0)
 		return CharOperation.NO_STRINGS;
 
-	FileInputStream stream = new FileInputStream(this.indexFile);
-	try {
-		int offset = this.chunkOffsets[0];
-		stream.skip(offset);
-		this.streamBuffer = new byte[BUFFER_READ_SIZE];
-		this.bufferIndex = 0;
-		this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-		int lastIndex = this.numberOfChunks - 1;
+	int lastIndex = this.numberOfChunks - 1;
+	ByteBuffer mapped = getMappedBuffer();
+	if (mapped != null) {
+		mapped.position(this.chunkOffsets[0]);
 		String[] docNames = new String[lastIndex * CHUNK_SIZE + sizeOfLastChunk];
 		for (int i = 0; i < this.numberOfChunks; i++)
-			readChunk(docNames, stream, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : sizeOfLastChunk);
+			readMappedChunk(docNames, mapped, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : sizeOfLastChunk);
 		return docNames;
-	} finally {
-		stream.close();
-		this.streamBuffer = null;
+	}
+
+	synchronized (this) { // the stream buffer cannot be shared
+		FileInputStream stream = new FileInputStream(this.indexFile);
+		try {
+			int offset = this.chunkOffsets[0];
+			stream.skip(offset);
+			this.streamBuffer = new byte[BUFFER_READ_SIZE];
+			this.bufferIndex = 0;
+			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
+			String[] docNames = new String[lastIndex * CHUNK_SIZE + sizeOfLastChunk];
+			for (int i = 0; i < this.numberOfChunks; i++)
+				readChunk(docNames, stream, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : sizeOfLastChunk);
+			return docNames;
+		} finally {
+			stream.close();
+			this.streamBuffer = null;
+		}
 	}
 }
-private synchronized HashtableOfObject readCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
+private HashtableOfObject readCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
 	// result will be null if categoryName is unknown
 	int offset = this.categoryOffsets.get(categoryName);
 	if (offset == HashtableOfIntValues.NO_VALUE) {
 		return null;
 	}
 
-	if (this.categoryTables == null) {
-		this.categoryTables = new HashtableOfObject(3);
-	} else {
-		HashtableOfObject cachedTable = (HashtableOfObject) this.categoryTables.get(categoryName);
-		if (cachedTable != null) {
-			if (readDocNumbers) { // must cache remaining document number arrays
-				Object[] arrayOffsets = cachedTable.valueTable;
-				for (int i = 0, l = arrayOffsets.length; i < l; i++)
-					if (arrayOffsets[i] instanceof Integer)
-						arrayOffsets[i] = readDocumentNumbers(arrayOffsets[i]);
+	HashtableOfObject cachedTable = DiskIndexCache.getCategoryTable(this, categoryName); // never modified once cached
+	if (cachedTable != null) {
+		if (readDocNumbers) { // must cache remaining document number arrays
+			Object[] arrayOffsets = cachedTable.valueTable;
+			for (int i = 0, l = arrayOffsets.length; i < l; i++) {
+				if (arrayOffsets[i] instanceof Integer) {
+					// decode into a copy since other queries may be reading the cached table
+					HashtableOfObject decodedTable = new HashtableOfObject(cachedTable.elementSize);
+					char[][] words = cachedTable.keyTable;
+					for (int j = 0, m = words.length; j < m; j++)
+						if (words[j] != null)
+							decodedTable.put(words[j], readDocumentNumbers(arrayOffsets[j]));
+					DiskIndexCache.putCategoryTable(this, internCategoryName(categoryName), decodedTable);
+					return decodedTable;
+				}
 			}
-			return cachedTable;
 		}
+		return cachedTable;
 	}
 
+	HashtableOfObject categoryTable;
+	char[][][] sortedWords = new char[1][][];
+	ByteBuffer mapped = getMappedBuffer();
+	if (mapped != null) {
+		categoryTable = readMappedCategoryTable(readDocNumbers, mapped, offset, sortedWords);
+	} else {
+		synchronized (this) { // the stream buffer cannot be shared
+			categoryTable = readStreamCategoryTable(readDocNumbers, offset, sortedWords);
+		}
+	}
+	categoryName = internCategoryName(categoryName);
+	DiskIndexCache.putCategoryTable(this, categoryName, categoryTable);
+	DiskIndexCache.putSortedWords(this, categoryName, sortedWords[0]);
+	return categoryTable;
+}
+/*
+ * Answers the words of the given category table sorted by compareWords(). Since the words are written in that order,
+ * they are collected while the table is decoded and only need to be sorted if they were evicted before the table.
+ */
+private char[][] readSortedWords(char[] categoryName, HashtableOfObject wordsToDocNumbers) {
+	char[][] sortedWords = DiskIndexCache.getSortedWords(this, categoryName); // never modified once cached
+	if (sortedWords == null) {
+		sortedWords = new char[wordsToDocNumbers.elementSize][];
+		char[][] words = wordsToDocNumbers.keyTable;
+		int count = 0;
+		for (int i = 0, l = words.length; i < l; i++)
+			if (words[i] != null)
+				sortedWords[count++] = words[i];
+		Util.sort(sortedWords, WORD_COMPARER);
+		DiskIndexCache.putSortedWords(this, internCategoryName(categoryName), sortedWords);
+	}
+	return sortedWords;
+}
+private HashtableOfObject readStreamCategoryTable(boolean readDocNumbers, int offset, char[][][] sortedWords) throws IOException {
+	// sortedWords[0] is set to the words in the order they were written
 	FileInputStream stream = new FileInputStream(this.indexFile);
 	HashtableOfObject categoryTable = null;
 	char[][] matchingWords = null;
@@ -617,6 +844,7 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 				System.err.println("--------------------   END   --------------------"); //$NON-NLS-1$
 			}
 			categoryTable = new HashtableOfObject(size);
+			sortedWords[0] = new char[size][];
 		} catch (OutOfMemoryError oom) {
 			// DEBUG
 			oom.printStackTrace();
@@ -629,7 +857,7 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 		}
 		int largeArraySize = 256;
 		for (int i = 0; i < size; i++) {
-			char[] word = readStreamChars(stream);
+			char[] word = sortedWords[0][i] = readStreamChars(stream);
 			int arrayOffset = readStreamInt(stream);
 			// if arrayOffset is:
 			//		<= 0 then the array size == 1 with the value -> -arrayOffset
@@ -651,10 +879,6 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 				categoryTable.put(word, new Integer(arrayOffset)); // offset to array in the file
 			}
 		}
-		this.categoryTables.put(INTERNED_CATEGORY_NAMES.get(categoryName), categoryTable);
-		// cache the table as long as its not too big
-		// in practice, some tables can be greater than 500K when they contain more than 10K elements
-		this.cachedCategoryName = categoryTable.elementSize < 20000 ? categoryName : null;
 	} catch (IOException ioe) {
 		this.streamBuffer = null;
 		throw ioe;
@@ -705,60 +929,76 @@ private void readChunk(String[] docNames, FileInputStream stream, int index, int
 		current = next;
 	}
 }
-synchronized String readDocumentName(int docNumber) throws IOException {
-	if (this.cachedChunks == null)
-		this.cachedChunks = new String[this.numberOfChunks][];
-
+String readDocumentName(int docNumber) throws IOException {
 	int chunkNumber = docNumber / CHUNK_SIZE;
-	String[] chunk = this.cachedChunks[chunkNumber];
+	String[] chunk = DiskIndexCache.getChunk(this, chunkNumber); // never modified once cached
 	if (chunk == null) {
 		boolean isLastChunk = chunkNumber == this.numberOfChunks - 1;
 		int start = this.chunkOffsets[chunkNumber];
 		int numberOfBytes = (isLastChunk ? this.startOfCategoryTables : this.chunkOffsets[chunkNumber + 1]) - start;
 		if (numberOfBytes < 0)
 			throw new IllegalArgumentException();
-		this.streamBuffer = new byte[numberOfBytes];
-		this.bufferIndex = 0;
-		FileInputStream file = new FileInputStream(this.indexFile);
-		try {
-			file.skip(start);
-			if (file.read(this.streamBuffer, 0, numberOfBytes) != numberOfBytes)
-				throw new IOException();
-		} catch (IOException ioe) {
-			this.streamBuffer = null;
-			throw ioe;
-		} finally {
-			file.close();
-		}
 		int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
 		chunk = new String[numberOfNames];
-		try {
-			readChunk(chunk, null, 0, numberOfNames);
-		} catch (IOException ioe) {
-			this.streamBuffer = null;
-			throw ioe;
+		ByteBuffer mapped = getMappedBuffer();
+		if (mapped != null) {
+			mapped.position(start);
+			readMappedChunk(chunk, mapped, 0, numberOfNames);
+		} else {
+			synchronized (this) { // the stream buffer cannot be shared
+				this.streamBuffer = new byte[numberOfBytes];
+				this.bufferIndex = 0;
+				FileInputStream file = new FileInputStream(this.indexFile);
+				try {
+					file.skip(start);
+					if (file.read(this.streamBuffer, 0, numberOfBytes) != numberOfBytes)
+						throw new IOException();
+					readChunk(chunk, null, 0, numberOfNames);
+				} finally {
+					file.close();
+					this.streamBuffer = null;
+				}
+			}
 		}
-		this.cachedChunks[chunkNumber] = chunk;
+		DiskIndexCache.putChunk(this, chunkNumber, chunk);
 	}
-	this.streamBuffer = null;
 	return chunk[docNumber - (chunkNumber * CHUNK_SIZE)];
 }
-synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
+DocumentNumbers iterateDocumentNumbers(Object arrayOffset) throws IOException {
+	// arrayOffset is either a cached array of docNumbers or an Integer offset in the file
+	if (!(arrayOffset instanceof int[])) {
+		ByteBuffer mapped = getMappedBuffer();
+		if (mapped != null) {
+			mapped.position(((Integer) arrayOffset).intValue());
+			return new DocumentNumbers(mapped);
+		}
+	}
+	return new DocumentNumbers(readDocumentNumbers(arrayOffset));
+}
+int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 	// arrayOffset is either a cached array of docNumbers or an Integer offset in the file
 	if (arrayOffset instanceof int[])
 		return (int[]) arrayOffset;
 
-	FileInputStream stream = new FileInputStream(this.indexFile);
-	try {
-		int offset = ((Integer) arrayOffset).intValue();
-		stream.skip(offset);
-		this.streamBuffer = new byte[BUFFER_READ_SIZE];
-		this.bufferIndex = 0;
-		this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-		return readStreamDocumentArray(stream, readStreamInt(stream));
-	} finally {
-		stream.close();
-		this.streamBuffer = null;
+	ByteBuffer mapped = getMappedBuffer();
+	if (mapped != null) {
+		mapped.position(((Integer) arrayOffset).intValue());
+		return readMappedDocumentArray(mapped, mapped.getInt());
+	}
+
+	synchronized (this) { // the stream buffer cannot be shared
+		FileInputStream stream = new FileInputStream(this.indexFile);
+		try {
+			int offset = ((Integer) arrayOffset).intValue();
+			stream.skip(offset);
+			this.streamBuffer = new byte[BUFFER_READ_SIZE];
+			this.bufferIndex = 0;
+			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
+			return readStreamDocumentArray(stream, readStreamInt(stream));
+		} finally {
+			stream.close();
+			this.streamBuffer = null;
+		}
 	}
 }
 private void readHeaderInfo(RandomAccessFile file) throws IOException {
@@ -767,7 +1007,6 @@ private void readHeaderInfo(RandomAccessFile file) throws IOException {
 	// must be same order as writeHeaderInfo()
 	this.numberOfChunks = file.readInt();
 	this.sizeOfLastChunk = file.readUnsignedByte();
-	this.documentReferenceSize = file.readUnsignedByte();
 
 	this.chunkOffsets = new int[this.numberOfChunks];
 	for (int i = 0; i < this.numberOfChunks; i++)
@@ -781,7 +1020,7 @@ private void readHeaderInfo(RandomAccessFile file) throws IOException {
 	char[] previousCategory = null;
 	int offset = -1;
 	for (int i = 0; i < size; i++) {
-		char[] categoryName = INTERNED_CATEGORY_NAMES.get(file.readUTF().toCharArray());
+		char[] categoryName = internCategoryName(file.readUTF().toCharArray());
 		offset = file.readInt();
 		this.categoryOffsets.put(categoryName, offset); // cache offset to category table
 		if (previousCategory != null) {
@@ -792,54 +1031,132 @@ private void readHeaderInfo(RandomAccessFile file) throws IOException {
 	if (previousCategory != null) {
 		this.categoryEnds.put(previousCategory, this.headerInfoOffset); // cache end of the category table
 	}
-	this.categoryTables = new HashtableOfObject(3);
 }
-void startQuery() {
-	this.cacheUserCount++;
-	synchronized (DiskIndex.this) {
-		//if there is currently a scheduled stop action, cancel it so caches don't get cleared
-		if (this.fStopQueryAction != null) {
-			PostponedRunnablesManager.cancelPostponedRunnable(this.fStopQueryAction);
-			this.fStopQueryAction = null;
+private static char[] internCategoryName(char[] categoryName) {
+	synchronized (INTERNED_CATEGORY_NAMES) { // shared by all indexes
+		return INTERNED_CATEGORY_NAMES.get(categoryName);
+	}
+}
+/*
+ * Forgets the mapping of the index file, it will be mapped again if this index is queried later on.
+ */
+synchronized void releaseMappedBuffer() {
+	this.mappedBuffer = null;
+}
+private HashtableOfObject readMappedCategoryTable(boolean readDocNumbers, ByteBuffer mapped, int offset, char[][][] sortedWords) throws IOException {
+	// same format as readStreamCategoryTable(), decoded directly from the mapped file
+	mapped.position(offset);
+	int size = mapped.getInt();
+	HashtableOfObject categoryTable = new HashtableOfObject(size);
+	sortedWords[0] = new char[size][];
+	int largeArraySize = 256;
+	for (int i = 0; i < size; i++) {
+		char[] word = sortedWords[0][i] = readMappedChars(mapped);
+		int arrayOffset = mapped.getInt();
+		if (arrayOffset <= 0) {
+			categoryTable.put(word, new int[] {-arrayOffset}); // store 1 element array by negating documentNumber
+		} else if (arrayOffset < largeArraySize) {
+			categoryTable.put(word, readMappedDocumentArray(mapped, arrayOffset)); // read in-lined array providing size
+		} else {
+			arrayOffset = mapped.getInt(); // read actual offset
+			if (readDocNumbers) {
+				// no need to collect the large arrays first since random access is free
+				int position = mapped.position();
+				mapped.position(arrayOffset);
+				categoryTable.put(word, readMappedDocumentArray(mapped, mapped.getInt()));
+				mapped.position(position);
+			} else {
+				categoryTable.put(word, new Integer(arrayOffset)); // offset to array in the file
+			}
 		}
 	}
+	return categoryTable;
 }
-void stopQuery() {
-	if (--this.cacheUserCount < 0) {
-		//schedule cache clearing for later so if another query comes in cache will not be cleared		
-		this.fStopQueryAction = PostponedRunnablesManager.addPostponedRunnable(new ISafeRunnable() {		
-			/**
-			 * <p>Clears category table caches</p>
-			 * 
-			 * @see org.eclipse.core.runtime.ISafeRunnable#run()
-			 */
-			public void run() throws Exception {
-				synchronized (DiskIndex.this) {
-					if (DiskIndex.this.cacheUserCount >= 0)
-						return;
-					// clear cached items
-					DiskIndex.this.cachedChunks = null;
-					if (DiskIndex.this.categoryTables != null) {
-						if (DiskIndex.this.cachedCategoryName == null) {
-							DiskIndex.this.categoryTables = null;
-						}
-						else if (DiskIndex.this.categoryTables.elementSize > 1) {
-							HashtableOfObject newTables = new HashtableOfObject(3);
-							newTables.put(DiskIndex.this.cachedCategoryName, DiskIndex.this.categoryTables.get(DiskIndex.this.cachedCategoryName));
-							DiskIndex.this.categoryTables = newTables;
-						}
-					}
+/*
+ * Same as readStreamChars() but decodes the modified UTF-8 string directly from the mapped file.
+ */
+private char[] readMappedChars(ByteBuffer mapped) throws IOException {
+	int length = mapped.getShort() & 0xFFFF;
+	char[] word = new char[length];
+	for (int i = 0; i < length; i++) {
+		byte b = mapped.get();
+		switch (b & 0xF0) {
+			case 0x00 :
+			case 0x10 :
+			case 0x20 :
+			case 0x30 :
+			case 0x40 :
+			case 0x50 :
+			case 0x60 :
+			case 0x70 :
+				word[i] = (char) b;
+				break;
+			case 0xC0 :
+			case 0xD0 :
+				char next = (char) mapped.get();
+				if ((next & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
 				}
+				char ch = (char) ((b & 0x1F) << 6);
+				ch |= next & 0x3F;
+				word[i] = ch;
+				break;
+			case 0xE0 :
+				char first = (char) mapped.get();
+				char second = (char) mapped.get();
+				if ((first & second & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				ch = (char) ((b & 0x0F) << 12);
+				ch |= ((first& 0x3F) << 6);
+				ch |= second & 0x3F;
+				word[i] = ch;
+				break;
+			default:
+				throw new UTFDataFormatException();
+		}
+	}
+	return word;
+}
+private void readMappedChunk(String[] docNames, ByteBuffer mapped, int index, int size) throws IOException {
+	String current = new String(readMappedChars(mapped));
+	docNames[index++] = current;
+	for (int i = 1; i < size; i++) {
+		int start = mapped.get() & 0xFF;
+		int end = mapped.get() & 0xFF;
+		String next  = new String(readMappedChars(mapped));
+		if (start > 0) {
+			if (end > 0) {
+				int length = current.length();
+				next = current.substring(0, start) + next + current.substring(length - end, length);
+			} else {
+				next = current.substring(0, start) + next;
 			}
-			
-			/**
-			 * @see org.eclipse.core.runtime.ISafeRunnable#handleException(java.lang.Throwable)
-			 */
-			public void handleException(Throwable e) {
-				Logger.logException("Error while trying to clear disk index cache", e);
-			}
-		}, 2000);
+		} else if (end > 0) {
+			int length = current.length();
+			next = next + current.substring(length - end, length);
+		}
+		docNames[index++] = next;
+		current = next;
+	}
+}
+private int[] readMappedDocumentArray(ByteBuffer mapped, int arraySize) {
+	// see writeDocumentNumbers()
+	int[] indexes = new int[arraySize];
+	int documentNumber = 0;
+	for (int i = 0; i < arraySize; i++)
+		indexes[i] = documentNumber += readMappedVarInt(mapped);
+	return indexes;
+}
+private static int readMappedVarInt(ByteBuffer mapped) {
+	// see writeStreamVarInt()
+	int b = mapped.get();
+	int val = b & 0x7F;
+	for (int shift = 7; b < 0; shift += 7) {
+		b = mapped.get();
+		val |= (b & 0x7F) << shift;
 	}
+	return val;
 }
 private void readStreamBuffer(FileInputStream stream) throws IOException {
 	// if we're about to read a known amount at the end of the existing buffer, but it does not completely fit
@@ -933,44 +1250,11 @@ private char[] readStreamChars(FileInputStream stream) throws IOException {
 	return word;
 }
 private int[] readStreamDocumentArray(FileInputStream stream, int arraySize) throws IOException {
+	// see writeDocumentNumbers()
 	int[] indexes = new int[arraySize];
-	if (arraySize == 0) return indexes;
-
-	int i = 0;
-	switch (this.documentReferenceSize) {
-		case 1 :
-			while (i < arraySize) {
-				// how many bytes without refilling the buffer?
-				int bytesInBuffer = i + this.bufferEnd - this.bufferIndex;
-				if (bytesInBuffer > arraySize)
-					bytesInBuffer = arraySize;
-				while (i < bytesInBuffer) {
-					indexes[i++] = this.streamBuffer[this.bufferIndex++] & 0xFF;
-				}
-				if (i < arraySize && stream != null)
-					readStreamBuffer(stream);
-			}
-			break;
-		case 2 :
-			while (i < arraySize) {
-				// how many shorts without refilling the buffer?
-				int shortsInBuffer = i + ((this.bufferEnd - this.bufferIndex) / 2);
-				if (shortsInBuffer > arraySize)
-					shortsInBuffer = arraySize;
-				while (i < shortsInBuffer) {
-					int val = (this.streamBuffer[this.bufferIndex++] & 0xFF) << 8;
-					indexes[i++] = val + (this.streamBuffer[this.bufferIndex++] & 0xFF);
-				}
-				if (i < arraySize && stream != null)
-					readStreamBuffer(stream);
-			}
-			break;
-		default :
-			while (i < arraySize) {
-				indexes[i++] = readStreamInt(stream);
-			}
-			break;
-	}
+	int documentNumber = 0;
+	for (int i = 0; i < arraySize; i++)
+		indexes[i] = documentNumber += readStreamVarInt(stream);
 	return indexes;
 }
 private int readStreamInt(FileInputStream stream) throws IOException {
@@ -982,6 +1266,18 @@ private int readStreamInt(FileInputStream stream) throws IOException {
 	val += (streamBuffer[this.bufferIndex++] & 0xFF) << 8;
 	return val + (streamBuffer[this.bufferIndex++] & 0xFF);
 }
+private int readStreamVarInt(FileInputStream stream) throws IOException {
+	// see writeStreamVarInt()
+	if (stream != null && this.bufferIndex + 5 >= this.bufferEnd)
+		readStreamBuffer(stream);
+	int b = this.streamBuffer[this.bufferIndex++];
+	int val = b & 0x7F;
+	for (int shift = 7; b < 0; shift += 7) {
+		b = this.streamBuffer[this.bufferIndex++];
+		val |= (b & 0x7F) << shift;
+	}
+	return val;
+}
 private void writeAllDocumentNames(String[] sortedDocNames, FileOutputStream stream) throws IOException {
 	if (sortedDocNames.length == 0)
 		throw new IllegalArgumentException();
@@ -1003,7 +1299,6 @@ private void writeAllDocumentNames(String[] sortedDocNames, FileOutputStream str
 		this.numberOfChunks--;
 		this.sizeOfLastChunk = CHUNK_SIZE;
 	}
-	this.documentReferenceSize = size <= 0x7F ? 1 : (size <= 0x7FFF ? 2 : 4); // number of bytes used to encode a reference
 
 	this.chunkOffsets = new int[this.numberOfChunks];
 	int lastIndex = this.numberOfChunks - 1;
@@ -1060,102 +1355,75 @@ private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDo
 	// the format of a category table is as follows:
 	// any document number arrays with >= 256 elements are written before the table (the offset to each array is remembered)
 	// then the number of word->int[] pairs in the table is written
-	// for each word -> int[] pair, the word is written followed by:
+	// for each word -> int[] pair, in the order of compareWords(), the word is written followed by:
 	//		an int <= 0 if the array size == 1
 	//		an int > 1 & < 256 for the size of the array if its > 1 & < 256, the document array follows immediately
 	//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
 
 	int largeArraySize = 256;
+	char[][] sortedWords = new char[wordsToDocs.elementSize][];
+	char[][] words = wordsToDocs.keyTable;
 	Object[] values = wordsToDocs.valueTable;
+	int count = 0;
 	for (int i = 0, l = values.length; i < l; i++) {
 		Object o = values[i];
 		if (o != null) {
 			if (o instanceof IntList)
-				o = values[i] = ((IntList) values[i]).asArray();
-			int[] documentNumbers = (int[]) o;
-			if (documentNumbers.length >= largeArraySize) {
-				values[i] = new Integer(this.streamEnd);
-				writeDocumentNumbers(documentNumbers, stream);
-			}
+				values[i] = ((IntList) o).asArray();
+			sortedWords[count++] = words[i];
+		}
+	}
+	Util.sort(sortedWords, WORD_COMPARER);
+
+	// the large arrays are written in the same order as their words, readStreamCategoryTable() reads them back in one pass
+	for (int i = 0; i < count; i++) {
+		int[] documentNumbers = (int[]) wordsToDocs.get(sortedWords[i]);
+		if (documentNumbers.length >= largeArraySize) {
+			wordsToDocs.put(sortedWords[i], new Integer(this.streamEnd));
+			writeDocumentNumbers(documentNumbers, stream);
 		}
 	}
 
 	this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the start of the table
 	this.categoryTables.put(categoryName, null); // flush cached table
 	writeStreamInt(stream, wordsToDocs.elementSize);
-	char[][] words = wordsToDocs.keyTable;
-	for (int i = 0, l = words.length; i < l; i++) {
-		Object o = values[i];
-		if (o != null) {
-			writeStreamChars(stream, words[i]);
-			if (o instanceof int[]) {
-				int[] documentNumbers = (int[]) o;
-				if (documentNumbers.length == 1)
-					writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
-				else
-					writeDocumentNumbers(documentNumbers, stream);
-			} else {
-				writeStreamInt(stream, largeArraySize); // mark to identify that an offset follows
-				writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
-			}
+	for (int i = 0; i < count; i++) {
+		char[] word = sortedWords[i];
+		Object o = wordsToDocs.get(word);
+		writeStreamChars(stream, word);
+		if (o instanceof int[]) {
+			int[] documentNumbers = (int[]) o;
+			if (documentNumbers.length == 1)
+				writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
+			else
+				writeDocumentNumbers(documentNumbers, stream);
+		} else {
+			writeStreamInt(stream, largeArraySize); // mark to identify that an offset follows
+			writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
 		}
 	}
 }
 private void writeDocumentNumbers(int[] documentNumbers, FileOutputStream stream) throws IOException {
 	// must store length as a positive int to detect in-lined array of 1 element
+	// the sorted document numbers follow, each one written as its difference with the previous one
 	int length = documentNumbers.length;
 	writeStreamInt(stream, length);
 	Util.sort(documentNumbers);
-	int start = 0;
-	switch (this.documentReferenceSize) {
-		case 1 :
-			while ((this.bufferIndex + length - start) >= BUFFER_WRITE_SIZE) {
-				// when documentNumbers is large, write BUFFER_WRITE_SIZE parts & fall thru to write the last part
-				int bytesLeft = BUFFER_WRITE_SIZE - this.bufferIndex;
-				for (int i=0; i < bytesLeft; i++) {
-					this.streamBuffer[this.bufferIndex++] = (byte) documentNumbers[start++];
-				}
-				stream.write(this.streamBuffer, 0, this.bufferIndex);
-				this.bufferIndex = 0;
-			}
-			while (start < length) {
-				this.streamBuffer[this.bufferIndex++] = (byte) documentNumbers[start++];
-			}
-			this.streamEnd += length;
-			break;
-		case 2 :
-			while ((this.bufferIndex + ((length - start) * 2)) >= BUFFER_WRITE_SIZE) {
-				// when documentNumbers is large, write BUFFER_WRITE_SIZE parts & fall thru to write the last part
-				int shortsLeft = (BUFFER_WRITE_SIZE - this.bufferIndex) / 2;
-				for (int i=0; i < shortsLeft; i++) {
-					this.streamBuffer[this.bufferIndex++] = (byte) (documentNumbers[start] >> 8);
-					this.streamBuffer[this.bufferIndex++] = (byte) documentNumbers[start++];
-				}
-				stream.write(this.streamBuffer, 0, this.bufferIndex);
-				this.bufferIndex = 0;
-			}
-			while (start < length) {
-				this.streamBuffer[this.bufferIndex++] = (byte) (documentNumbers[start] >> 8);
-				this.streamBuffer[this.bufferIndex++] = (byte) documentNumbers[start++];
-			}
-			this.streamEnd += length * 2;
-			break;
-		default :
-			while (start < length) {
-				writeStreamInt(stream, documentNumbers[start++]);
-			}
-			break;
+	int previous = 0;
+	for (int i = 0; i < length; i++) {
+		int documentNumber = documentNumbers[i];
+		writeStreamVarInt(stream, documentNumber - previous);
+		previous = documentNumber;
 	}
 }
 private void writeHeaderInfo(FileOutputStream stream) throws IOException {
 	writeStreamInt(stream, this.numberOfChunks);
-	if ((this.bufferIndex + 2) >= BUFFER_WRITE_SIZE)  {
+	if ((this.bufferIndex + 1) >= BUFFER_WRITE_SIZE)  {
 		stream.write(this.streamBuffer, 0, this.bufferIndex);
 		this.bufferIndex = 0;
 	}
 	this.streamBuffer[this.bufferIndex++] = (byte) this.sizeOfLastChunk;
-	this.streamBuffer[this.bufferIndex++] = (byte) this.documentReferenceSize;
-	this.streamEnd += 2;
+	this.streamEnd++;
 
 	// apend the file with chunk offsets
 	for (int i = 0; i < this.numberOfChunks; i++) {
@@ -1292,4 +1560,18 @@ private void writeStreamInt(FileOutputStream stream, int val) throws IOException
 	this.streamBuffer[this.bufferIndex++] = (byte) val;
 	this.streamEnd += 4;
 }
+private void writeStreamVarInt(FileOutputStream stream, int val) throws IOException {
+	// 7 bits per byte, least significant first, the high bit is set on every byte but the last
+	if ((this.bufferIndex + 5) >= BUFFER_WRITE_SIZE)  {
+		stream.write(this.streamBuffer, 0, this.bufferIndex);
+		this.bufferIndex = 0;
+	}
+	int oldIndex = this.bufferIndex;
+	while ((val & ~0x7F) != 0) {
+		this.streamBuffer[this.bufferIndex++] = (byte) ((val & 0x7F) | 0x80);
+		val >>>= 7;
+	}
+	this.streamBuffer[this.bufferIndex++] = (byte) val;
+	this.streamEnd += this.bufferIndex - oldIndex;
+}
 }
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.index;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+
+import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfObject;
+import org.eclipse.wst.jsdt.internal.core.util.LRUCache;
+
+/**
+ * <p>Cache of the category tables and document name chunks decoded from index files,
+ * shared by all the {@link DiskIndex}es.</p>
+ *
+ * <p>The cache is bounded by an estimate of the number of bytes used by the decoded data,
+ * the least recently used data being evicted first. It is split into independently locked
+ * segments so that concurrent queries do not contend on a single lock. Any segment can use
+ * the whole space of the cache, so that the category tables of large libraries are cached.</p>
+ */
+public class DiskIndexCache {
+
+	/**
+	 * <p>Default space limit of the cache, in bytes.</p>
+	 */
+	public static final int DEFAULT_SPACE_LIMIT = 32 * 1024 * 1024;
+
+	/**
+	 * <p>Number of segments, must be a power of 2.</p>
+	 */
+	private static final int SEGMENTS = 16;
+
+	private static final int CATEGORY_TABLE = -1;
+	private static final int SORTED_WORDS = -2;
+
+	private static final int INITIAL_ENTRIES = 64;
+
+	private static volatile int fSpaceLimit = DEFAULT_SPACE_LIMIT;
+
+	/**
+	 * <p>Orders the data used in all the segments, see {@link #trim()}. Increments may be lost when
+	 * segments are used concurrently, this only makes the order of these uses approximate.</p>
+	 */
+	private static int fClock;
+
+	private static final Segment[] fSegments = new Segment[SEGMENTS];
+	static {
+		for (int i = 0; i < SEGMENTS; i++)
+			fSegments[i] = new Segment(DEFAULT_SPACE_LIMIT);
+	}
+
+	/**
+	 * <p>Key of a cached category table or document name chunk.</p>
+	 */
+	private static class Key {
+		final DiskIndex fIndex;
+		final char[] fCategoryName; // null for a document name chunk
+		final int fChunkNumber; // CATEGORY_TABLE or SORTED_WORDS for the data of a category
+		final int fHashCode;
+
+		Key(DiskIndex index, char[] categoryName, int chunkNumber) {
+			this.fIndex = index;
+			this.fCategoryName = categoryName;
+			this.fChunkNumber = chunkNumber;
+			int hash = System.identityHashCode(index) * 31;
+			this.fHashCode = categoryName == null ? hash + chunkNumber : hash + CharOperation.hashCode(categoryName) + chunkNumber;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key other = (Key) o;
+			return this.fIndex == other.fIndex
+				&& this.fChunkNumber == other.fChunkNumber
+				&& CharOperation.equals(this.fCategoryName, other.fCategoryName);
+		}
+
+		public int hashCode() {
+			return this.fHashCode;
+		}
+
+		public String toString() {
+			return this.fIndex.indexFile.getName() + (this.fCategoryName == null ? " chunk " + this.fChunkNumber : " " + new String(this.fCategoryName)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * <p>One independently locked part of the cache, sized in bytes.</p>
+	 */
+	private static class Segment extends LRUCache {
+		long fHits;
+		long fMisses;
+		long fEvictions;
+
+		Segment(int size) {
+			// the limit is in bytes, do not size the table of the entries by it
+			super(INITIAL_ENTRIES);
+			this.fSpaceLimit = size;
+		}
+
+		synchronized Object lookup(Key key) {
+			Object value = get(key);
+			if (value == null)
+				this.fMisses++;
+			else
+				this.fHits++;
+			return value;
+		}
+
+		protected boolean makeSpace(int space) {
+			int size = this.fEntryTable.size();
+			boolean result = super.makeSpace(space);
+			this.fEvictions += size - this.fEntryTable.size();
+			return result;
+		}
+
+		protected LRUCache newInstance(int size) {
+			return new Segment(size);
+		}
+
+		protected void privateAddEntry(LRUCacheEntry entry, boolean shuffle) {
+			super.privateAddEntry(entry, shuffle);
+			entry._fTimestamp = fClock++;
+		}
+
+		protected void updateTimestamp(LRUCacheEntry entry) {
+			super.updateTimestamp(entry);
+			entry._fTimestamp = fClock++;
+		}
+
+		/**
+		 * <p>Answers when the least recently used data of this segment was used, or <code>Integer.MAX_VALUE</code>
+		 * if the segment is empty.</p>
+		 */
+		int getOldestTimestamp() {
+			return this.fEntryQueueTail == null ? Integer.MAX_VALUE : this.fEntryQueueTail._fTimestamp;
+		}
+
+		void evictOldest() {
+			if (this.fEntryQueueTail != null) {
+				privateRemoveEntry(this.fEntryQueueTail, false);
+				this.fEvictions++;
+			}
+		}
+
+		/**
+		 * <p>Estimates the number of bytes used by a decoded category table or document name chunk.</p>
+		 */
+		protected int spaceFor(Object value) {
+			int space = 0;
+			if (value instanceof HashtableOfObject) {
+				HashtableOfObject table = (HashtableOfObject) value;
+				char[][] words = table.keyTable;
+				Object[] arrays = table.valueTable;
+				space += 32 + words.length * 8;
+				for (int i = 0, l = words.length; i < l; i++) {
+					if (words[i] != null) {
+						space += 16 + words[i].length * 2;
+						Object o = arrays[i];
+						space += o instanceof int[] ? 16 + ((int[]) o).length * 4 : 16;
+					}
+				}
+			} else if (value instanceof char[][]) {
+				// the words themselves are shared with the category table
+				space += 16 + ((char[][]) value).length * 4;
+			} else if (value instanceof String[]) {
+				String[] names = (String[]) value;
+				space += 16 + names.length * 4;
+				for (int i = 0, l = names.length; i < l; i++)
+					if (names[i] != null)
+						space += 40 + names[i].length() * 2;
+			}
+			return space;
+		}
+	}
+
+	private static Segment segmentFor(Key key) {
+		return fSegments[key.hashCode() & (SEGMENTS - 1)];
+	}
+
+	static HashtableOfObject getCategoryTable(DiskIndex index, char[] categoryName) {
+		Key key = new Key(index, categoryName, CATEGORY_TABLE);
+		return (HashtableOfObject) segmentFor(key).lookup(key);
+	}
+
+	static void putCategoryTable(DiskIndex index, char[] categoryName, HashtableOfObject categoryTable) {
+		Key key = new Key(index, categoryName, CATEGORY_TABLE);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, categoryTable);
+		}
+		trim();
+	}
+
+	static char[][] getSortedWords(DiskIndex index, char[] categoryName) {
+		Key key = new Key(index, categoryName, SORTED_WORDS);
+		return (char[][]) segmentFor(key).lookup(key);
+	}
+
+	static void putSortedWords(DiskIndex index, char[] categoryName, char[][] sortedWords) {
+		Key key = new Key(index, categoryName, SORTED_WORDS);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, sortedWords);
+		}
+		trim();
+	}
+
+	static String[] getChunk(DiskIndex index, int chunkNumber) {
+		Key key = new Key(index, null, chunkNumber);
+		return (String[]) segmentFor(key).lookup(key);
+	}
+
+	static boolean containsChunk(DiskIndex index, int chunkNumber) {
+		Key key = new Key(index, null, chunkNumber);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			return segment.peek(key) != null; // does not count as a hit nor make the chunk recently used
+		}
+	}
+
+	static void putChunk(DiskIndex index, int chunkNumber, String[] chunk) {
+		Key key = new Key(index, null, chunkNumber);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, chunk);
+		}
+		trim();
+	}
+
+	/**
+	 * <p>Evicts the least recently used data of all the segments until the cache fits its space limit.
+	 * Only called once data was decoded, so that the lookups which find their data only lock one segment.</p>
+	 */
+	private static void trim() {
+		while (getCurrentSpace() > fSpaceLimit) {
+			Segment oldest = null;
+			int oldestTimestamp = Integer.MAX_VALUE;
+			for (int i = 0; i < SEGMENTS; i++) {
+				Segment segment = fSegments[i];
+				synchronized (segment) {
+					int timestamp = segment.getOldestTimestamp();
+					if (timestamp < oldestTimestamp) {
+						oldest = segment;
+						oldestTimestamp = timestamp;
+					}
+				}
+			}
+			if (oldest == null) return;
+			synchronized (oldest) {
+				oldest.evictOldest();
+			}
+		}
+	}
+
+	/**
+	 * <p>Removes everything cached for the given index, for example once its index file was replaced.</p>
+	 */
+	static void removeAll(DiskIndex index) {
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				ArrayList keys = new ArrayList();
+				for (Enumeration e = segment.keys(); e.hasMoreElements();) {
+					Key key = (Key) e.nextElement();
+					if (key.fIndex == index)
+						keys.add(key);
+				}
+				for (int j = 0, l = keys.size(); j < l; j++)
+					segment.removeKey(keys.get(j));
+			}
+		}
+	}
+
+	/**
+	 * <p>Sets the maximum number of bytes the cache can use, evicting data if the cache is now too big.</p>
+	 *
+	 * @param limit maximum size of the cache in bytes
+	 */
+	public static void setSpaceLimit(int limit) {
+		fSpaceLimit = limit;
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				segment.setSpaceLimit(limit);
+			}
+		}
+		trim();
+	}
+
+	/**
+	 * @return maximum number of bytes the cache can use
+	 */
+	public static int getSpaceLimit() {
+		return fSpaceLimit;
+	}
+
+	/**
+	 * @return estimated number of bytes currently used by the cache
+	 */
+	public static int getCurrentSpace() {
+		int space = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				space += segment.getCurrentSpace();
+			}
+		}
+		return space;
+	}
+
+	/**
+	 * @return number of lookups answered from the cache
+	 */
+	public static long getHitCount() {
+		long hits = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				hits += segment.fHits;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * @return number of lookups that had to decode the index file
+	 */
+	public static long getMissCount() {
+		long misses = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				misses += segment.fMisses;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * @return number of entries evicted to keep the cache under its space limit
+	 */
+	public static long getEvictionCount() {
+		long evictions = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			Segment segment = fSegments[i];
+			synchronized (segment) {
+				evictions += segment.fEvictions;
+			}
+		}
+		return evictions;
+	}
+
+	public static String toStringStatistics() {
+		StringBuffer buffer = new StringBuffer("Disk index cache: "); //$NON-NLS-1$
+		buffer.append(getCurrentSpace()).append('/').append(getSpaceLimit()).append(" bytes, "); //$NON-NLS-1$
+		buffer.append(getHitCount()).append(" hits, "); //$NON-NLS-1$
+		buffer.append(getMissCount()).append(" misses, "); //$NON-NLS-1$
+		buffer.append(getEvictionCount()).append(" evictions"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+}
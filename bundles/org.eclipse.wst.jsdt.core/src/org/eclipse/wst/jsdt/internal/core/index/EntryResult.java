@@ -47,18 +47,18 @@ public String[] getDocumentNames(Index index) throws java.io.IOException {
 		int length = this.documentTables.length;
 		if (length == 1 && this.documentNames == null) { // have a single table
 			Object offset = this.documentTables[0].get(word);
-			int[] numbers = index.diskIndex.readDocumentNumbers(offset);
-			String[] names = new String[numbers.length];
-			for (int i = 0, l = numbers.length; i < l; i++)
-				names[i] = index.diskIndex.readDocumentName(numbers[i]);
+			DiskIndex.DocumentNumbers numbers = index.diskIndex.iterateDocumentNumbers(offset);
+			String[] names = new String[numbers.size()];
+			for (int i = 0; numbers.hasNext(); i++)
+				names[i] = index.diskIndex.readDocumentName(numbers.next());
 			return names;
 		}
 
 		for (int i = 0; i < length; i++) {
 			Object offset = this.documentTables[i].get(word);
-			int[] numbers = index.diskIndex.readDocumentNumbers(offset);
-			for (int j = 0, k = numbers.length; j < k; j++)
-				addDocumentName(index.diskIndex.readDocumentName(numbers[j]));
+			DiskIndex.DocumentNumbers numbers = index.diskIndex.iterateDocumentNumbers(offset);
+			while (numbers.hasNext())
+				addDocumentName(index.diskIndex.readDocumentName(numbers.next()));
 		}
 	}
 
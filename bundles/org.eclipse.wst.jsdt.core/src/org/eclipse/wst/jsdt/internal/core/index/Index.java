@@ -12,11 +12,9 @@ package org.eclipse.wst.jsdt.internal.core.index;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.wst.jsdt.core.compiler.CharOperation;
 import org.eclipse.wst.jsdt.core.search.IJavaScriptSearchScope;
 import org.eclipse.wst.jsdt.core.search.SearchPattern;
 import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfObject;
@@ -39,6 +37,13 @@ public ReadWriteMonitor monitor;
 protected DiskIndex diskIndex;
 protected MemoryIndex memoryIndex;
 
+private Object mergeRequest; // set while a background merge is pending, cleared to cancel it, see requestMerge()
+
+// statistics of the background merges
+private static long mergeCount;
+private static long mergeTime; // milliseconds spent writing the merged index files
+private static long mergeStallTime; // milliseconds during which queries were blocked by the swap of the merged indexes
+
 /**
  * Mask used on match rule for indexing.
  */
@@ -50,48 +55,12 @@ static final int MATCH_RULE_INDEX_MASK =
 	SearchPattern.R_CASE_SENSITIVE |
 	SearchPattern.R_CAMELCASE_MATCH;
 
+/**
+ * Answers whether the word matches the pattern with the given match rule.
+ * Queries match many words with the same pattern, they use a single WordMatcher instead.
+ */
 public static boolean isMatch(char[] pattern, char[] word, int matchRule) {
-	if (pattern == null) return true;
-	int patternLength = pattern.length;
-	int wordLength = word.length;
-	if (patternLength == 0) return matchRule != SearchPattern.R_EXACT_MATCH;
-	if (wordLength == 0) return (matchRule & SearchPattern.R_PATTERN_MATCH) != 0 && patternLength == 1 && pattern[0] == '*';
-
-	// First test camel case if necessary
-	boolean isCamelCase = (matchRule & SearchPattern.R_CAMELCASE_MATCH) != 0;
-	if (isCamelCase &&  pattern[0] == word[0] && CharOperation.camelCaseMatch(pattern, word)) {
-		return true;
-	}
-
-	// need to mask some bits of pattern rule (bug 79790)
-	matchRule &= ~SearchPattern.R_CAMELCASE_MATCH;
-	switch(matchRule & MATCH_RULE_INDEX_MASK) {
-		case SearchPattern.R_EXACT_MATCH :
-			if (!isCamelCase) {
-				return patternLength == wordLength && CharOperation.equals(pattern, word, false);
-			}
-			// fall through prefix match if camel case failed
-		case SearchPattern.R_PREFIX_MATCH :
-			return patternLength <= wordLength && CharOperation.prefixEquals(pattern, word, false);
-		case SearchPattern.R_PATTERN_MATCH :
-			return CharOperation.match(pattern, word, false);
-		case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			if (!isCamelCase) {
-				return pattern[0] == word[0] && patternLength == wordLength && CharOperation.equals(pattern, word);
-			}
-			// fall through prefix match if camel case failed
-		case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			return pattern[0] == word[0] && patternLength <= wordLength && CharOperation.prefixEquals(pattern, word);
-		case SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			return CharOperation.match(pattern, word, true);
-		case SearchPattern.R_REGEXP_MATCH: {
-			return Pattern.compile(new String(pattern), Pattern.CASE_INSENSITIVE).matcher(new String(word)).matches();
-		}
-		case SearchPattern.R_REGEXP_MATCH | SearchPattern.R_CASE_SENSITIVE: {
-			return Pattern.matches(new String(pattern), new String(word));
-		}
-	}
-	return false;
+	return new WordMatcher(pattern, matchRule).matches(word);
 }
 
 
@@ -106,6 +75,19 @@ public Index(String fileName, String containerPath, boolean reuseExistingFile) t
 public void addIndexEntry(char[] category, char[] key, String containerRelativePath) {
 	this.memoryIndex.addIndexEntry(category, key, containerRelativePath);
 }
+/**
+ * Releases the resources held onto by this index, such as the mapping of its index file.
+ * The index can still be queried afterwards, these resources are then acquired again.
+ */
+public void discard() {
+	synchronized (this) {
+		this.mergeRequest = null; // cancel a pending merge, which would overwrite the index file
+	}
+	if (this.diskIndex != null) {
+		this.diskIndex.releaseMappedBuffer();
+		DiskIndexCache.removeAll(this.diskIndex);
+	}
+}
 public String containerRelativePath(String documentPath) {
 	int index = documentPath.indexOf(IJavaScriptSearchScope.JAR_FILE_ENTRY_SEPARATOR);
 	if (index == -1) {
@@ -125,6 +107,12 @@ public String containerRelativePath(String documentPath) {
 	}
 	return documentPath.substring(index + 1);
 }
+/**
+ * Answers the number of documents added, changed or removed since the index file was last written.
+ */
+public int getChangedDocumentCount() {
+	return this.memoryIndex.docsToReferences.elementSize;
+}
 public File getIndexFile() {
 	return this.diskIndex == null ? null : this.diskIndex.indexFile;
 }
@@ -137,34 +125,155 @@ public boolean hasChanged() {
  * If the key is null then all entries in specified categories are returned.
  */
 public EntryResult[] query(char[][] categories, char[] key, int matchRule) throws IOException {
-	if (this.memoryIndex.shouldMerge() && monitor.exitReadEnterWrite()) {
-		try {
-			save();
-		} finally {
-			monitor.exitWriteEnterRead();
-		}
-	}
+	return query(new char[][][] {categories}, new char[][] {key}, new int[] {matchRule})[0];
+}
+/**
+ * Runs several queries at once, the i-th query being defined by categories[i], keys[i] and matchRules[i]
+ * as in query(char[][], char[], int). Returns the entries of each query, or null at the index of a query
+ * without matches. Each category table is read once for all the queries on it.
+ */
+public EntryResult[][] query(char[][][] categories, char[][] keys, int[] matchRules) throws IOException {
+	if (this.memoryIndex.shouldMerge())
+		requestMerge();
 
-	HashtableOfObject results;
-	int rule = matchRule & MATCH_RULE_INDEX_MASK;
+	int length = keys.length;
+	int[] rules = new int[length];
+	WordMatcher[] matchers = new WordMatcher[length];
+	for (int i = 0; i < length; i++) {
+		rules[i] = matchRules[i] & MATCH_RULE_INDEX_MASK;
+		matchers[i] = new WordMatcher(keys[i], rules[i]);
+	}
+	HashtableOfObject[] results;
 	if (this.memoryIndex.hasChanged()) {
-		results = this.diskIndex.addQueryResults(categories, key, rule, this.memoryIndex);
-		results = this.memoryIndex.addQueryResults(categories, key, rule, results);
+		results = this.diskIndex.addQueryResults(categories, keys, rules, matchers, this.memoryIndex);
+		for (int i = 0; i < length; i++)
+			results[i] = this.memoryIndex.addQueryResults(categories[i], keys[i], rules[i], matchers[i], results[i]);
 	} else {
-		results = this.diskIndex.addQueryResults(categories, key, rule, null);
+		results = this.diskIndex.addQueryResults(categories, keys, rules, matchers, null);
 	}
-	if (results == null) return null;
 
-	EntryResult[] entryResults = new EntryResult[results.elementSize];
-	int count = 0;
-	Object[] values = results.valueTable;
-	for (int i = 0, l = values.length; i < l; i++) {
-		EntryResult result = (EntryResult) values[i];
-		if (result != null)
-			entryResults[count++] = result;
+	EntryResult[][] entryResults = new EntryResult[length][];
+	for (int i = 0; i < length; i++) {
+		if (results[i] == null) continue;
+
+		EntryResult[] entries = entryResults[i] = new EntryResult[results[i].elementSize];
+		int count = 0;
+		Object[] values = results[i].valueTable;
+		for (int j = 0, l = values.length; j < l; j++) {
+			EntryResult result = (EntryResult) values[j];
+			if (result != null)
+				entries[count++] = result;
+		}
 	}
 	return entryResults;
 }
+/*
+ * Merges the memory index into the disk index, run in the background by the IndexMerger after requestMerge().
+ * The merged index is written next to the index file while holding the read permission of the monitor,
+ * queries keep running against the current indexes. Only the swap of the merged indexes blocks them.
+ */
+void merge() {
+	// must not own the monitor
+	Object request;
+	synchronized (this) {
+		request = this.mergeRequest;
+	}
+	ReadWriteMonitor readWriteMonitor = this.monitor;
+	if (request == null || readWriteMonitor == null) return; // cancelled or index got deleted
+
+	long start = System.currentTimeMillis();
+	DiskIndex oldDiskIndex = null, newDiskIndex = null;
+	readWriteMonitor.enterBackgroundRead(); // queries are not blocked by the writers waiting for the merge
+	try {
+		if (this.memoryIndex.hasChanged()) {
+			oldDiskIndex = this.diskIndex;
+			// not the temporary file of save(), a discarded index can be recreated and saved while this merge is written
+			File tempFile = new File(oldDiskIndex.indexFile.getPath() + ".merge.tmp"); //$NON-NLS-1$
+			newDiskIndex = oldDiskIndex.writeMergedIndex(this.memoryIndex, tempFile);
+		}
+	} catch (IOException e) {
+		if (DiskIndex.DEBUG) {
+			System.out.println("merge - Failed to merge " + this); //$NON-NLS-1$
+			e.printStackTrace();
+		}
+	} finally {
+		if (newDiskIndex == null) {
+			synchronized (this) {
+				if (this.mergeRequest == request)
+					this.mergeRequest = null;
+			}
+			readWriteMonitor.exitBackgroundRead();
+		}
+	}
+	if (newDiskIndex == null) return;
+
+	// no writer can change the memory index while waiting for the other readers
+	long stallStart = System.currentTimeMillis(); // queries wait as soon as this merge waits for the write lock
+	readWriteMonitor.exitBackgroundReadEnterWrite();
+	boolean swapped = false;
+	try {
+		synchronized (this) {
+			if (this.mergeRequest == request) {
+				this.mergeRequest = null;
+				swapped = this.monitor == readWriteMonitor; // else the index got deleted
+			}
+		}
+		if (swapped) {
+			if (newDiskIndex != oldDiskIndex)
+				newDiskIndex.replace(oldDiskIndex);
+			this.diskIndex = newDiskIndex;
+			this.memoryIndex = new MemoryIndex();
+		}
+	} catch (IOException e) {
+		swapped = false;
+		if (DiskIndex.DEBUG) {
+			System.out.println("merge - Failed to replace " + this); //$NON-NLS-1$
+			e.printStackTrace();
+		}
+	} finally {
+		readWriteMonitor.exitWrite();
+		if (!swapped && newDiskIndex != oldDiskIndex)
+			newDiskIndex.deleteIndexFile();
+	}
+	if (swapped) {
+		long end = System.currentTimeMillis();
+		if (newDiskIndex != oldDiskIndex)
+			DiskIndexCache.removeAll(oldDiskIndex); // unreachable by the queries, no need to block them
+
+		synchronized (Index.class) {
+			mergeCount++;
+			mergeTime += stallStart - start;
+			mergeStallTime += end - stallStart;
+		}
+	}
+}
+/**
+ * Returns the number of memory indexes merged in the background since startup.
+ */
+public static synchronized long getMergeCount() {
+	return mergeCount;
+}
+/**
+ * Returns the time spent by the background merges writing the merged index files, in milliseconds.
+ */
+public static synchronized long getMergeTime() {
+	return mergeTime;
+}
+/**
+ * Returns the time during which queries were blocked by the background merges, in milliseconds.
+ */
+public static synchronized long getMergeStallTime() {
+	return mergeStallTime;
+}
+public static String toStringStatistics() {
+	StringBuffer buffer = new StringBuffer("Index merges: "); //$NON-NLS-1$
+	synchronized (Index.class) {
+		buffer.append(mergeCount).append(" merges, "); //$NON-NLS-1$
+		buffer.append(mergeTime).append(" ms merging, "); //$NON-NLS-1$
+		buffer.append(mergeStallTime).append(" ms blocking queries"); //$NON-NLS-1$
+	}
+	return buffer.toString();
+}
 /**
  * Returns the document names that contain the given substring, if null then returns all of them.
  */
@@ -186,6 +295,17 @@ public String[] queryDocumentNames(String substring) throws IOException {
 			documentNames[count++] = (String) paths[i];
 	return documentNames;
 }
+/*
+ * Asks the IndexMerger to merge the memory index in the background, unless a merge is already pending.
+ * Queries used to merge it themselves, making the query which crossed MemoryIndex.NUM_CHANGES wait for the merge.
+ */
+private void requestMerge() {
+	synchronized (this) {
+		if (this.mergeRequest != null) return;
+		this.mergeRequest = new Object();
+	}
+	IndexMerger.schedule(this);
+}
 public void remove(String containerRelativePath) {
 	this.memoryIndex.remove(containerRelativePath);
 }
@@ -200,12 +320,10 @@ public void save() throws IOException {
 		System.gc(); // reclaim space if the MemoryIndex was very BIG
 }
 public void startQuery() {
-	if (this.diskIndex != null)
-		this.diskIndex.startQuery();
+	// nothing to do, decoded tables stay in the DiskIndexCache until they are evicted
 }
 public void stopQuery() {
-	if (this.diskIndex != null)
-		this.diskIndex.stopQuery();
+	// nothing to do, see startQuery()
 }
 public String toString() {
 	return "Index for " + this.containerPath; //$NON-NLS-1$
@@ -217,6 +335,8 @@ public String toString() {
  */
 public void reset() throws IOException {
 	this.memoryIndex = new MemoryIndex();
+	this.diskIndex.releaseMappedBuffer();
+	DiskIndexCache.removeAll(this.diskIndex);
 	this.diskIndex = new DiskIndex(this.diskIndex.indexFile.getAbsolutePath());
 	this.diskIndex.initialize(false/*do not reuse the index file*/);
 }
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.index;
+
+import java.util.ArrayList;
+
+import org.eclipse.wst.jsdt.internal.core.util.Util;
+
+/**
+ * Merges the memory indexes of the indexes into their disk indexes in the background, see Index#requestMerge().
+ *
+ * A single daemon thread runs the requested merges one after the other, it stops once none is left.
+ * The merges are not run by the indexing jobs since searches wait until these jobs are done.
+ */
+class IndexMerger {
+
+private static final ArrayList requests = new ArrayList(); // of Index
+private static Thread thread;
+
+static void schedule(Index index) {
+	synchronized (requests) {
+		requests.add(index);
+		if (thread == null) {
+			thread = new Thread("JavaScript Index Merger") { //$NON-NLS-1$
+				public void run() {
+					runMerges();
+				}
+			};
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1); // same as the indexing threads
+			thread.start();
+		}
+	}
+}
+private static void runMerges() {
+	while (true) {
+		Index index;
+		synchronized (requests) {
+			if (requests.isEmpty()) {
+				thread = null;
+				return;
+			}
+			index = (Index) requests.remove(0);
+		}
+		try {
+			index.merge();
+		} catch (RuntimeException e) {
+			Util.log(e, "Failed to merge " + index); //$NON-NLS-1$
+		}
+	}
+}
+}
@@ -65,7 +65,7 @@ void addIndexEntry(char[] category, char[] key, String documentName) {
 
 
 }
-HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule, HashtableOfObject results) {
+HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule, WordMatcher matcher, HashtableOfObject results) {
 	// assumed the disk index already skipped over documents which have been added/changed/deleted
 	// results maps a word -> EntryResult
 	Object[] paths = this.docsToReferences.keyTable;
@@ -98,7 +98,7 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 						char[][] words = wordSet.words;
 						for (int k = 0, n = words.length; k < n; k++) {
 							char[] word = words[k];
-							if (word != null && Index.isMatch(key, word, matchRule)) {
+							if (word != null && matcher.matches(word)) {
 								if (results == null)
 									results = new HashtableOfObject(13);
 								EntryResult result = (EntryResult) results.get(word);
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.index;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ScannerHelper;
+
+/**
+ * Matches the words of an index against the key of a query, see {@link Index#isMatch(char[], char[], int)}.
+ *
+ * The key is analyzed once when the matcher is created so that matching a word does not allocate:
+ * wildcard patterns are split into their segments, regular expressions are compiled once and matched
+ * against the words without converting them to strings.
+ *
+ * A matcher is not thread safe, it is created for a single query.
+ */
+class WordMatcher {
+
+private static final int NONE = 0;
+private static final int EXACT = 1;
+private static final int PREFIX = 2;
+private static final int PATTERN = 3;
+private static final int REGEXP = 4;
+
+private static final char[] DOUBLE_STAR = new char[] {'*', '*'};
+
+private char[] pattern;
+private int matchRule;
+private int kind;
+private boolean isCaseSensitive;
+private boolean isCamelCase;
+
+// wildcard patterns containing a '*', split around the stars, lower cased if not case sensitive
+private char[][] segments;
+private int minLength; // number of characters of the pattern which are not stars
+
+// regular expressions, compiled by the first match since an invalid expression is only reported when a word is matched
+private Matcher regexpMatcher;
+private CharArraySequence regexpInput;
+
+/*
+ * A word seen as a CharSequence, reset for each match.
+ */
+private static class CharArraySequence implements CharSequence {
+
+char[] chars;
+
+public char charAt(int index) {
+	return this.chars[index];
+}
+public int length() {
+	return this.chars.length;
+}
+public CharSequence subSequence(int start, int end) {
+	return new String(this.chars, start, end - start);
+}
+public String toString() {
+	return new String(this.chars);
+}
+}
+
+WordMatcher(char[] pattern, int matchRule) {
+	this.pattern = pattern;
+	this.matchRule = matchRule;
+	if (pattern == null || pattern.length == 0) return;
+
+	this.isCamelCase = (matchRule & SearchPattern.R_CAMELCASE_MATCH) != 0;
+	// need to mask some bits of pattern rule (bug 79790)
+	int rule = matchRule & ~SearchPattern.R_CAMELCASE_MATCH & Index.MATCH_RULE_INDEX_MASK;
+	this.isCaseSensitive = (rule & SearchPattern.R_CASE_SENSITIVE) != 0;
+	switch (rule & ~SearchPattern.R_CASE_SENSITIVE) {
+		case SearchPattern.R_EXACT_MATCH :
+			this.kind = this.isCamelCase ? PREFIX : EXACT; // fall through prefix match if camel case failed
+			break;
+		case SearchPattern.R_PREFIX_MATCH :
+			this.kind = PREFIX;
+			break;
+		case SearchPattern.R_PATTERN_MATCH :
+			this.kind = PATTERN;
+			initializeSegments();
+			break;
+		case SearchPattern.R_REGEXP_MATCH :
+			this.kind = REGEXP;
+			break;
+		default :
+			this.kind = NONE;
+	}
+}
+private void initializeSegments() {
+	int stars = CharOperation.occurencesOf('*', this.pattern);
+	if (stars == 0 || CharOperation.indexOf(DOUBLE_STAR, this.pattern, true) >= 0)
+		return; // matched by CharOperation.match(), whose results differ from a plain segment search for these patterns
+
+	char[] chars = this.pattern;
+	if (!this.isCaseSensitive) {
+		chars = new char[this.pattern.length];
+		for (int i = 0, l = chars.length; i < l; i++)
+			chars[i] = ScannerHelper.toLowerCase(this.pattern[i]);
+	}
+	this.segments = CharOperation.splitOn('*', chars);
+	this.minLength = chars.length - stars;
+}
+boolean matches(char[] word) {
+	if (this.pattern == null) return true;
+	int patternLength = this.pattern.length;
+	int wordLength = word.length;
+	if (patternLength == 0) return this.matchRule != SearchPattern.R_EXACT_MATCH;
+	if (wordLength == 0) return (this.matchRule & SearchPattern.R_PATTERN_MATCH) != 0 && patternLength == 1 && this.pattern[0] == '*';
+
+	// First test camel case if necessary
+	if (this.isCamelCase && this.pattern[0] == word[0] && CharOperation.camelCaseMatch(this.pattern, 0, patternLength, word, 0, wordLength))
+		return true;
+
+	switch (this.kind) {
+		case EXACT :
+			if (this.isCaseSensitive)
+				return this.pattern[0] == word[0] && patternLength == wordLength && CharOperation.equals(this.pattern, word);
+			return patternLength == wordLength && CharOperation.equals(this.pattern, word, false);
+		case PREFIX :
+			if (this.isCaseSensitive)
+				return this.pattern[0] == word[0] && patternLength <= wordLength && CharOperation.prefixEquals(this.pattern, word);
+			return patternLength <= wordLength && CharOperation.prefixEquals(this.pattern, word, false);
+		case PATTERN :
+			if (this.segments == null)
+				return CharOperation.match(this.pattern, 0, patternLength, word, 0, wordLength, this.isCaseSensitive);
+			return wordLength >= this.minLength && matchSegments(word);
+		case REGEXP :
+			if (this.regexpMatcher == null) {
+				Pattern regexp = Pattern.compile(new String(this.pattern), this.isCaseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+				this.regexpInput = new CharArraySequence();
+				this.regexpInput.chars = word;
+				this.regexpMatcher = regexp.matcher(this.regexpInput);
+			} else {
+				this.regexpInput.chars = word;
+				this.regexpMatcher.reset(this.regexpInput);
+			}
+			return this.regexpMatcher.matches();
+	}
+	return false;
+}
+/*
+ * The first segment must start the word and the last one must end it, the segments in between are
+ * searched from left to right, each one after the previous one.
+ */
+private boolean matchSegments(char[] word) {
+	char[][] parts = this.segments;
+	int last = parts.length - 1;
+	char[] head = parts[0];
+	char[] tail = parts[last];
+	int end = word.length - tail.length; // no overlap with the head since the word is at least minLength long
+	if (!matchSegment(head, word, 0) || !matchSegment(tail, word, end))
+		return false;
+
+	int start = head.length;
+	for (int i = 1; i < last; i++) {
+		char[] segment = parts[i];
+		int segmentLength = segment.length; // not empty, stars are not consecutive
+		while (true) {
+			if (start + segmentLength > end) return false;
+			if (matchSegment(segment, word, start)) break;
+			start++;
+		}
+		start += segmentLength;
+	}
+	return true;
+}
+private boolean matchSegment(char[] segment, char[] word, int start) {
+	for (int i = 0, l = segment.length; i < l; i++) {
+		char segmentChar = segment[i];
+		if (segmentChar == '?') continue;
+		char wordChar = word[start + i];
+		if (segmentChar != (this.isCaseSensitive ? wordChar : ScannerHelper.toLowerCase(wordChar)))
+			return false;
+	}
+	return true;
+}
+}
@@ -41,6 +41,7 @@ import org.eclipse.wst.jsdt.core.infer.InferredType;
 import org.eclipse.wst.jsdt.core.search.IJavaScriptSearchConstants;
 import org.eclipse.wst.jsdt.core.search.IJavaScriptSearchScope;
 import org.eclipse.wst.jsdt.core.search.SearchDocument;
+import org.eclipse.wst.jsdt.core.search.SearchMatch;
 import org.eclipse.wst.jsdt.core.search.SearchParticipant;
 import org.eclipse.wst.jsdt.core.search.SearchPattern;
 import org.eclipse.wst.jsdt.core.search.SearchRequestor;
@@ -230,6 +231,8 @@ public class BasicSearchEngine {
 	 */
 	void findMatches(SearchPattern pattern, SearchParticipant[] participants, IJavaScriptSearchScope scope, SearchRequestor requestor, IProgressMonitor monitor) throws CoreException {
 		if (monitor != null && monitor.isCanceled()) throw new OperationCanceledException();
+		long start = System.currentTimeMillis();
+		TimedSearchRequestor timedRequestor = null;
 		try {
 			if (VERBOSE) {
 				Util.verbose("Searching for pattern: " + pattern.toString()); //$NON-NLS-1$
@@ -245,6 +248,33 @@ public class BasicSearchEngine {
 			if (monitor != null)
 				monitor.beginTask(Messages.engine_searching, 100 * length);
 			IndexManager indexManager = JavaModelManager.getJavaModelManager().getIndexManager();
+			timedRequestor = new TimedSearchRequestor(requestor, indexManager.firstMatchTimes);
+			requestor = timedRequestor;
+
+			// answer from the search result cache if the indexes of the scope did not change since the same search
+			SearchResultCache cache = SearchResultCache.getCache();
+			String cacheKey = cache == null ? null : cache.computeKey(pattern, participants, scope);
+			long[] generations = null;
+			SearchResultCache.RecordingRequestor recordingRequestor = null;
+			if (cacheKey != null && getWorkingCopies() == null) {
+				generations = cache.getGenerations(scope); // before searching, so that changes requested meanwhile outdate the result
+				SearchMatch[] cachedMatches = cache.getMatches(cacheKey, generations);
+				if (cachedMatches != null) {
+					if (VERBOSE) Util.verbose("Answering " + cachedMatches.length + " matches from " + cache); //$NON-NLS-1$ //$NON-NLS-2$
+					requestor.beginReporting();
+					requestor.enterParticipant(participants[0]);
+					try {
+						for (int i = 0, matchesLength = cachedMatches.length; i < matchesLength; i++)
+							requestor.acceptSearchMatch(cachedMatches[i]);
+					} finally {
+						requestor.exitParticipant(participants[0]);
+					}
+					return;
+				}
+				recordingRequestor = new SearchResultCache.RecordingRequestor(requestor);
+				requestor = recordingRequestor;
+			}
+
 			requestor.beginReporting();
 			for (int i = 0; i < length; i++) {
 				if (monitor != null && monitor.isCanceled()) throw new OperationCanceledException();
@@ -279,10 +309,16 @@ public class BasicSearchEngine {
 					participant.doneSearching();
 				}
 			}
+			if (recordingRequestor != null)
+				cache.putMatches(cacheKey, generations, recordingRequestor);
 		} finally {
 			requestor.endReporting();
 			if (monitor != null)
 				monitor.done();
+			if (VERBOSE && timedRequestor != null) {
+				Util.verbose(timedRequestor.getMatchCount() + " matches in " + (System.currentTimeMillis() - start) + "ms, first match after " //$NON-NLS-1$ //$NON-NLS-2$
+					+ timedRequestor.getFirstMatchTime() + "ms"); //$NON-NLS-1$
+			}
 		}
 	}
 	/**
@@ -110,11 +110,16 @@ public boolean search(Index index, IProgressMonitor progressMonitor) {
 
 	ReadWriteMonitor monitor = index.monitor;
 	if (monitor == null) return COMPLETE; // index got deleted since acquired
+	IndexManager indexManager = JavaModelManager.getJavaModelManager().getIndexManager();
 	try {
+		long waitStart = System.currentTimeMillis();
 		monitor.enterRead(); // ask permission to read
 		long start = System.currentTimeMillis();
+		indexManager.readWaitTimes.record(start - waitStart);
 		MatchLocator.findIndexMatches(this.pattern, index, requestor, this.participant, this.scope, progressMonitor);
-		executionTime += System.currentTimeMillis() - start;
+		long time = System.currentTimeMillis() - start;
+		indexManager.queryTimes.record(time);
+		executionTime += time;
 		return COMPLETE;
 	} catch (IOException e) {
 		if (e instanceof java.io.EOFException)
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.jsdt.core.IJavaScriptElement;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.search.FieldDeclarationMatch;
+import org.eclipse.wst.jsdt.core.search.FieldReferenceMatch;
+import org.eclipse.wst.jsdt.core.search.IJavaScriptSearchScope;
+import org.eclipse.wst.jsdt.core.search.LocalVariableDeclarationMatch;
+import org.eclipse.wst.jsdt.core.search.LocalVariableReferenceMatch;
+import org.eclipse.wst.jsdt.core.search.MethodDeclarationMatch;
+import org.eclipse.wst.jsdt.core.search.MethodReferenceMatch;
+import org.eclipse.wst.jsdt.core.search.PackageReferenceMatch;
+import org.eclipse.wst.jsdt.core.search.SearchMatch;
+import org.eclipse.wst.jsdt.core.search.SearchParticipant;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.core.search.SearchRequestor;
+import org.eclipse.wst.jsdt.core.search.TypeDeclarationMatch;
+import org.eclipse.wst.jsdt.core.search.TypeReferenceMatch;
+import org.eclipse.wst.jsdt.internal.core.JavaModelManager;
+import org.eclipse.wst.jsdt.internal.core.search.matching.DeclarationOfAccessedFieldsPattern;
+import org.eclipse.wst.jsdt.internal.core.search.matching.DeclarationOfReferencedMethodsPattern;
+import org.eclipse.wst.jsdt.internal.core.search.matching.DeclarationOfReferencedTypesPattern;
+import org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern;
+import org.eclipse.wst.jsdt.internal.core.util.ILRUCacheable;
+import org.eclipse.wst.jsdt.internal.core.util.LRUCache;
+
+/**
+ * Keeps the matches of the last searches, see BasicSearchEngine#findMatches().
+ *
+ * The matches are keyed by the search pattern and scope, and are valid as long as the generations
+ * of the indexes of the scope did not change (see IndexManager#getGenerations()): the delta processor
+ * requests a change of the index of a project or library whenever one of its files changes.
+ * Only the searches of the default participant without working copies with unsaved changes are
+ * kept, the least recently used ones are discarded once CORE_SEARCH_RESULT_CACHE_SIZE matches are kept.
+ * Since search matches can be modified by their requestor, the cache keeps copies of the matches
+ * and answers new copies of them to each search.
+ */
+public class SearchResultCache {
+
+	private static SearchResultCache instance;
+
+	private final LRUCache results;
+	private int hits;
+	private int misses;
+
+	static class Result implements ILRUCacheable {
+		final long[] generations;
+		final SearchMatch[] matches;
+
+		Result(long[] generations, SearchMatch[] matches) {
+			this.generations = generations;
+			this.matches = matches;
+		}
+		public int getCacheFootprint() {
+			return this.matches.length + 1;
+		}
+	}
+
+	/**
+	 * Records the matches reported to the client requestor.
+	 */
+	static class RecordingRequestor extends SearchRequestor {
+		final SearchRequestor requestor;
+		final ArrayList matches = new ArrayList();
+		boolean copied = true; // whether every match could be copied
+
+		RecordingRequestor(SearchRequestor requestor) {
+			this.requestor = requestor;
+		}
+		public void acceptSearchMatch(SearchMatch match) throws CoreException {
+			if (this.copied) {
+				SearchMatch copy = copy(match); // before the requestor can modify it
+				if (copy == null) {
+					this.copied = false;
+					this.matches.clear();
+				} else {
+					this.matches.add(copy);
+				}
+			}
+			this.requestor.acceptSearchMatch(match);
+		}
+		public void beginReporting() {
+			this.requestor.beginReporting();
+		}
+		public void endReporting() {
+			this.requestor.endReporting();
+		}
+		public void enterParticipant(SearchParticipant participant) {
+			this.requestor.enterParticipant(participant);
+		}
+		public void exitParticipant(SearchParticipant participant) {
+			this.requestor.exitParticipant(participant);
+		}
+	}
+
+	private SearchResultCache(int size) {
+		this.results = new LRUCache(size);
+	}
+
+	/**
+	 * Returns the cache sized after the CORE_SEARCH_RESULT_CACHE_SIZE option, or <code>null</code>
+	 * if search results must not be kept.
+	 */
+	public static synchronized SearchResultCache getCache() {
+		int size = 0;
+		String option = JavaScriptCore.getOption(JavaScriptCore.CORE_SEARCH_RESULT_CACHE_SIZE);
+		if (option != null) {
+			try {
+				size = Integer.parseInt(option);
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+		if (size <= 0) {
+			instance = null;
+			return null;
+		}
+		if (instance == null)
+			instance = new SearchResultCache(size);
+		else
+			instance.setSize(size);
+		return instance;
+	}
+
+	/**
+	 * Returns the key of the results of the given search, or <code>null</code> if they cannot be kept.
+	 */
+	public String computeKey(SearchPattern pattern, SearchParticipant[] participants, IJavaScriptSearchScope scope) {
+		if (participants == null || participants.length != 1 || participants[0].getClass() != JavaSearchParticipant.class)
+			return null;
+		// the patterns which remember the elements already reported or whose state is not printed are not kept
+		if (!(pattern instanceof JavaSearchPattern)
+				|| pattern instanceof DeclarationOfAccessedFieldsPattern
+				|| pattern instanceof DeclarationOfReferencedMethodsPattern
+				|| pattern instanceof DeclarationOfReferencedTypesPattern)
+			return null;
+		if (!(scope instanceof JavaSearchScope))
+			return null;
+
+		StringBuffer key = new StringBuffer();
+		((JavaSearchPattern) pattern).printKey(key).append('\n');
+		key.append(scope.getClass().getName()).append('\n');
+		key.append(scope.toString()).append('\n');
+		IPath[] containers = scope.enclosingProjectsAndJars();
+		for (int i = 0, length = containers.length; i < length; i++)
+			key.append(containers[i]).append('\n');
+		return key.toString();
+	}
+
+	/**
+	 * Returns the current generations of the indexes the given scope searches.
+	 */
+	public long[] getGenerations(IJavaScriptSearchScope scope) {
+		return JavaModelManager.getJavaModelManager().getIndexManager().getGenerations(scope.enclosingProjectsAndJars());
+	}
+
+	/**
+	 * Returns copies of the matches kept for the given key if they were computed from indexes of the given
+	 * generations, or <code>null</code> if there are none.
+	 */
+	public SearchMatch[] getMatches(String key, long[] generations) {
+		SearchMatch[] matches;
+		synchronized (this) {
+			Result result = (Result) this.results.get(key);
+			if (result == null || !Arrays.equals(result.generations, generations)) {
+				if (result != null)
+					this.results.removeKey(key); // outdated
+				this.misses++;
+				return null;
+			}
+			this.hits++;
+			matches = result.matches;
+		}
+		int length = matches.length;
+		SearchMatch[] copies = new SearchMatch[length];
+		for (int i = 0; i < length; i++)
+			copies[i] = copy(matches[i]); // the kept matches could all be copied
+		return copies;
+	}
+
+	/**
+	 * Keeps the matches recorded by the given requestor for the given key, computed from indexes of the given generations.
+	 */
+	public synchronized void putMatches(String key, long[] generations, RecordingRequestor requestor) {
+		if (!requestor.copied) return;
+		SearchMatch[] matches = new SearchMatch[requestor.matches.size()];
+		requestor.matches.toArray(matches);
+		this.results.put(key, new Result(generations, matches));
+	}
+
+	/*
+	 * Answers a copy of the given match, or null if its class is not one of the matches reported by the
+	 * MatchLocator.
+	 */
+	static SearchMatch copy(SearchMatch match) {
+		Class matchClass = match.getClass();
+		int accuracy = match.getAccuracy();
+		int offset = match.getOffset();
+		int length = match.getLength();
+		boolean insideDocComment = match.isInsideDocComment();
+		SearchParticipant participant = match.getParticipant();
+		IResource resource = match.getResource();
+		SearchMatch copy;
+		if (matchClass == TypeReferenceMatch.class) {
+			TypeReferenceMatch typeReference = (TypeReferenceMatch) match;
+			TypeReferenceMatch typeReferenceCopy = new TypeReferenceMatch(null, accuracy, offset, length, insideDocComment, participant, resource);
+			typeReferenceCopy.setLocalElement(typeReference.getLocalElement());
+			IJavaScriptElement[] otherElements = typeReference.getOtherElements();
+			if (otherElements != null)
+				System.arraycopy(otherElements, 0, otherElements = new IJavaScriptElement[otherElements.length], 0, otherElements.length);
+			typeReferenceCopy.setOtherElements(otherElements);
+			copy = typeReferenceCopy;
+		} else if (matchClass == MethodReferenceMatch.class) {
+			MethodReferenceMatch methodReference = (MethodReferenceMatch) match;
+			copy = new MethodReferenceMatch(null, accuracy, offset, length, methodReference.isConstructor(), methodReference.isSuperInvocation(), insideDocComment, participant, resource);
+		} else if (matchClass == FieldReferenceMatch.class) {
+			FieldReferenceMatch fieldReference = (FieldReferenceMatch) match;
+			copy = new FieldReferenceMatch(null, accuracy, offset, length, fieldReference.isReadAccess(), fieldReference.isWriteAccess(), insideDocComment, participant, resource);
+		} else if (matchClass == LocalVariableReferenceMatch.class) {
+			LocalVariableReferenceMatch variableReference = (LocalVariableReferenceMatch) match;
+			copy = new LocalVariableReferenceMatch(null, accuracy, offset, length, variableReference.isReadAccess(), variableReference.isWriteAccess(), insideDocComment, participant, resource);
+		} else if (matchClass == PackageReferenceMatch.class) {
+			copy = new PackageReferenceMatch(null, accuracy, offset, length, insideDocComment, participant, resource);
+		} else if (matchClass == TypeDeclarationMatch.class) {
+			copy = new TypeDeclarationMatch(null, accuracy, offset, length, participant, resource);
+		} else if (matchClass == MethodDeclarationMatch.class) {
+			copy = new MethodDeclarationMatch(null, accuracy, offset, length, participant, resource);
+		} else if (matchClass == FieldDeclarationMatch.class) {
+			copy = new FieldDeclarationMatch(null, accuracy, offset, length, participant, resource);
+		} else if (matchClass == LocalVariableDeclarationMatch.class) {
+			copy = new LocalVariableDeclarationMatch(null, accuracy, offset, length, participant, resource);
+		} else if (matchClass == SearchMatch.class) {
+			copy = new SearchMatch(null, accuracy, offset, length, participant, resource);
+		} else {
+			return null;
+		}
+		copy.setElement(match.getElement());
+		copy.setInsideDocComment(insideDocComment);
+		copy.setRule(match.getRule());
+		copy.setRaw(match.isRaw());
+		copy.setImplicit(match.isImplicit());
+		return copy;
+	}
+
+	private synchronized void setSize(int size) {
+		if (size != this.results.getSpaceLimit())
+			this.results.setSpaceLimit(size);
+	}
+
+	public static synchronized String toStringStatistics() {
+		return instance == null ? "Search result cache: disabled" : instance.toString(); //$NON-NLS-1$
+	}
+
+	public synchronized String toString() {
+		return "Search result cache: " + this.results.getCurrentSpace() + "/" + this.results.getSpaceLimit() //$NON-NLS-1$ //$NON-NLS-2$
+			+ " matches kept, " + this.hits + " hits, " + this.misses + " misses"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
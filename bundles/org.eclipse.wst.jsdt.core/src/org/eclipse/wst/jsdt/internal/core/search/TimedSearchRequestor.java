@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.jsdt.core.search.SearchMatch;
+import org.eclipse.wst.jsdt.core.search.SearchParticipant;
+import org.eclipse.wst.jsdt.core.search.SearchRequestor;
+import org.eclipse.wst.jsdt.internal.core.util.Histogram;
+
+/**
+ * Forwards the matches of a search to the client requestor and measures the time from the start
+ * of the search to its first match, see BasicSearchEngine#findMatches().
+ */
+class TimedSearchRequestor extends SearchRequestor {
+
+	private final SearchRequestor requestor;
+	private final Histogram firstMatchTimes;
+	private final long start;
+	private long firstMatchTime = -1;
+	private int matchCount;
+
+	TimedSearchRequestor(SearchRequestor requestor, Histogram firstMatchTimes) {
+		this.requestor = requestor;
+		this.firstMatchTimes = firstMatchTimes;
+		this.start = System.currentTimeMillis();
+	}
+
+	public void acceptSearchMatch(SearchMatch match) throws CoreException {
+		if (this.matchCount++ == 0) {
+			this.firstMatchTime = System.currentTimeMillis() - this.start;
+			this.firstMatchTimes.record(this.firstMatchTime);
+		}
+		this.requestor.acceptSearchMatch(match);
+	}
+
+	public void beginReporting() {
+		this.requestor.beginReporting();
+	}
+
+	public void endReporting() {
+		this.requestor.endReporting();
+	}
+
+	public void enterParticipant(SearchParticipant participant) {
+		this.requestor.enterParticipant(participant);
+	}
+
+	public void exitParticipant(SearchParticipant participant) {
+		this.requestor.exitParticipant(participant);
+	}
+
+	/**
+	 * Returns the time from the start of the search to its first match in milliseconds,
+	 * or -1 if no match was reported yet.
+	 */
+	public long getFirstMatchTime() {
+		return this.firstMatchTime;
+	}
+
+	public int getMatchCount() {
+		return this.matchCount;
+	}
+
+	public String toString() {
+		return "Timed requestor for " + this.requestor; //$NON-NLS-1$
+	}
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core.search.indexing;
 
+import java.util.ArrayList;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -18,6 +20,7 @@ import org.eclipse.core.resources.IResourceProxyVisitor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
 import org.eclipse.wst.jsdt.core.JavaScriptCore;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
@@ -53,9 +56,7 @@ class AddFolderToIndex extends IndexRequest {
 		try {
 			monitor.enterRead(); // ask permission to read
 
-			final IPath container = this.containerPath;
-			final IndexManager indexManager = this.manager;
-			final SourceElementParser parser = indexManager.getSourceElementParser(JavaScriptCore.create(this.project), null/*requestor will be set by indexer*/);
+			final ArrayList sources = new ArrayList(); // files to index
 			if (this.exclusionPatterns == null && this.inclusionPatterns == null) {
 				folder.accept(
 					new IResourceProxyVisitor() {
@@ -63,7 +64,7 @@ class AddFolderToIndex extends IndexRequest {
 							if (proxy.getType() == IResource.FILE) {
 								if (org.eclipse.wst.jsdt.internal.core.util.Util.isJavaLikeFileName(proxy.getName())
 										||org.eclipse.wst.jsdt.internal.core.util.Util.isMetadataFileName(proxy.getName()))
-									indexManager.addSource((IFile) proxy.requestResource(), container, parser);
+									sources.add(proxy.requestResource());
 								return false;
 							}
 							return true;
@@ -80,7 +81,7 @@ class AddFolderToIndex extends IndexRequest {
 									if (org.eclipse.wst.jsdt.internal.core.util.Util.isJavaLikeFileName(proxy.getName())) {
 										IResource resource = proxy.requestResource();
 										if (!Util.isExcluded(resource, inclusionPatterns, exclusionPatterns))
-											indexManager.addSource((IFile)resource, container, parser);
+											sources.add(resource);
 									}
 									return false;
 								case IResource.FOLDER :
@@ -96,6 +97,13 @@ class AddFolderToIndex extends IndexRequest {
 					IResource.NONE
 				);
 			}
+			if (!sources.isEmpty()) {
+				IFile[] files = new IFile[sources.size()];
+				sources.toArray(files);
+				IJavaScriptProject javaProject = JavaScriptCore.create(this.project);
+				SourceElementParser parser = this.manager.getSourceElementParser(javaProject, null/*requestor will be set by indexer*/);
+				this.manager.addSources(files, this.containerPath, parser, javaProject);
+			}
 		} catch (CoreException e) {
 			if (JobManager.VERBOSE) {
 				Util.verbose("-> failed to add " + this.folderPath + " to index because of the following exception:", System.err); //$NON-NLS-1$ //$NON-NLS-2$
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
+import org.eclipse.wst.jsdt.core.search.SearchDocument;
+import org.eclipse.wst.jsdt.core.search.SearchEngine;
+import org.eclipse.wst.jsdt.core.search.SearchParticipant;
+import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.eclipse.wst.jsdt.internal.core.util.Util;
+
+/**
+ * Indexes source files of a project on several threads, see IndexManager#addSources().
+ *
+ * Each parsing thread has its own parser and records the entries of its documents without
+ * holding any lock. The indexing thread adds these entries to the index under its write lock,
+ * in the order of the files, as soon as the documents are parsed.
+ */
+class AddSourcesToIndex extends IndexRequest {
+	// parsed documents waiting to be added to the index, bounds the memory used by their entries
+	private static final int MAX_PENDING_DOCUMENTS = 256;
+
+	private static final byte PENDING = 0;
+	private static final byte PARSED = 1;
+	private static final byte FAILED = 2;
+
+	IFile[] files;
+	IJavaScriptProject project;
+	SourceElementParser parser;
+	int parserCount;
+
+	// shared with the parsing threads, guarded by this
+	private SearchDocument[] documents;
+	private byte[] states;
+	private int nextDocument; // next document to parse
+	private int addedDocuments; // number of documents added to the index
+	private int runningParsers;
+	private boolean stopped;
+
+	public AddSourcesToIndex(IFile[] files, IPath containerPath, SourceElementParser parser, IJavaScriptProject project, int parserCount, IndexManager manager) {
+		super(containerPath, manager);
+		this.files = files;
+		this.parser = parser;
+		this.project = project;
+		this.parserCount = parserCount;
+	}
+	public boolean execute(IProgressMonitor progressMonitor) {
+
+		if (this.isCancelled || progressMonitor != null && progressMonitor.isCanceled()) return true;
+
+		/* ensure no concurrent write access to index */
+		Index index = this.manager.getIndex(this.containerPath, true, /*reuse index file*/ true /*create if none*/);
+		if (index == null) return true;
+		ReadWriteMonitor monitor = index.monitor;
+		if (monitor == null) return true; // index got deleted since acquired
+
+		SearchParticipant participant = SearchEngine.getDefaultSearchParticipant();
+		IPath indexLocation = this.manager.computeIndexLocation(this.containerPath);
+		int length = this.files.length;
+		this.documents = new SearchDocument[length];
+		for (int i = 0; i < length; i++)
+			this.documents[i] = participant.getDocument(this.files[i].getFullPath().toString());
+		this.states = new byte[length];
+
+		Thread[] parsers = new Thread[Math.min(this.parserCount, length)];
+		this.runningParsers = parsers.length;
+		for (int i = 0; i < parsers.length; i++) {
+			SourceElementParser documentParser = i == 0
+				? this.parser
+				: this.manager.getSourceElementParser(this.project, null/*requestor will be set by indexer*/);
+			parsers[i] = new Thread(new ParseLoop(documentParser, participant, indexLocation), "JavaScript Indexing Parser " + (i + 1)); //$NON-NLS-1$
+			parsers[i].setDaemon(true);
+			parsers[i].setPriority(Thread.currentThread().getPriority());
+			parsers[i].start();
+		}
+		try {
+			addParsedDocuments(index, monitor);
+		} finally {
+			synchronized (this) {
+				this.stopped = true;
+				notifyAll();
+			}
+			for (int i = 0; i < parsers.length; i++) {
+				while (parsers[i].isAlive()) {
+					try {
+						parsers[i].join();
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+			}
+			this.documents = null;
+		}
+		return true;
+	}
+	/*
+	 * Adds the entries of the parsed documents to the index in file order, taking the write lock
+	 * once for all the documents parsed since the last time.
+	 */
+	private void addParsedDocuments(Index index, ReadWriteMonitor monitor) {
+		int length = this.documents.length;
+		while (this.addedDocuments < length) {
+			int start = this.addedDocuments;
+			int end = start;
+			synchronized (this) {
+				while (this.states[start] == PENDING && this.runningParsers > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+				if (this.isCancelled || this.states[start] == PENDING) return; // the parsers stopped
+				while (end < this.nextDocument && this.states[end] != PENDING)
+					end++;
+			}
+			try {
+				monitor.enterWrite(); // ask permission to write
+				for (int i = start; i < end; i++)
+					if (this.states[i] == PARSED)
+						((InternalSearchDocument) this.documents[i]).addBufferedEntries(index);
+			} finally {
+				monitor.exitWrite(); // free write lock
+			}
+			synchronized (this) {
+				for (int i = start; i < end; i++)
+					this.documents[i] = null;
+				this.addedDocuments = end;
+				notifyAll(); // parsers may wait for the pending documents to be added
+			}
+		}
+	}
+	/*
+	 * Answers the next document to parse, or -1 if there is none or if indexing stopped.
+	 */
+	synchronized int nextDocument() {
+		while (!this.stopped && !this.isCancelled && this.nextDocument < this.documents.length
+				&& this.nextDocument - this.addedDocuments >= MAX_PENDING_DOCUMENTS) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+		if (this.stopped || this.isCancelled || this.nextDocument >= this.documents.length) return -1;
+		return this.nextDocument++;
+	}
+	synchronized void documentParsed(int document, byte state) {
+		this.states[document] = state;
+		if (document == this.addedDocuments)
+			notifyAll();
+	}
+	synchronized void parserStopped() {
+		this.runningParsers--;
+		notifyAll();
+	}
+	public String toString() {
+		return "indexing " + this.files.length + " files of " + this.containerPath; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	class ParseLoop implements Runnable {
+		SourceElementParser documentParser;
+		SearchParticipant participant;
+		IPath indexLocation;
+
+		ParseLoop(SourceElementParser documentParser, SearchParticipant participant, IPath indexLocation) {
+			this.documentParser = documentParser;
+			this.participant = participant;
+			this.indexLocation = indexLocation;
+		}
+		public void run() {
+			try {
+				int i;
+				while ((i = nextDocument()) >= 0) {
+					SearchDocument document = AddSourcesToIndex.this.documents[i];
+					byte state = FAILED;
+					try {
+						((InternalSearchDocument) document).parser = this.documentParser;
+						((InternalSearchDocument) document).bufferIndexEntries();
+						this.participant.indexDocument(document, this.indexLocation);
+						state = PARSED;
+					} catch (RuntimeException e) {
+						Util.log(e, "Failed to index " + document.getPath()); //$NON-NLS-1$
+					} finally {
+						documentParsed(i, state);
+					}
+				}
+			} finally {
+				parserStopped();
+			}
+		}
+	}
+}
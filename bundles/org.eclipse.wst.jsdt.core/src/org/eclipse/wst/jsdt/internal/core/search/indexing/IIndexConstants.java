@@ -25,6 +25,8 @@ public interface IIndexConstants {
 	final char[] FIELD_DECL= "fieldDecl".toCharArray(); //$NON-NLS-1$
 	final char[] VAR_DECL= "varDecl".toCharArray(); //$NON-NLS-1$
 	final char[] TYPE_SYNONYMS = "typeSynonyms".toCharArray(); //$NON-NLS-1$
+	// one entry per source document, see SourceIndexer.contentHash(char[])
+	final char[] CONTENT_HASH = "contentHash".toCharArray(); //$NON-NLS-1$
 	final char[] OBJECT = "Object".toCharArray(); //$NON-NLS-1$
 	final char [] WINDOW = "Window".toCharArray(); //$NON-NLS-1$
 	final char[] GLOBAL = "Global".toCharArray(); //$NON-NLS-1$
@@ -12,6 +12,8 @@ package org.eclipse.wst.jsdt.internal.core.search.indexing;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import org.eclipse.core.filesystem.EFS;
@@ -26,10 +28,14 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.wst.jsdt.core.IIncludePathEntry;
 import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.JavaScriptModelException;
+import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.wst.jsdt.internal.core.ClasspathEntry;
 import org.eclipse.wst.jsdt.internal.core.JavaProject;
+import org.eclipse.wst.jsdt.internal.core.index.EntryResult;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
 import org.eclipse.wst.jsdt.internal.core.search.processing.JobManager;
 import org.eclipse.wst.jsdt.internal.core.util.Util;
@@ -117,6 +123,7 @@ public class IndexAllProject extends IndexRequest {
 					indexedFileNames.put(paths[i], DELETED);
 			}
 			final long indexLastModified = max == 0 ? 0L : index.getIndexFile().lastModified();
+			final ArrayList touchedFileNames = new ArrayList(); // indexed files modified since the index file was written
 
 			IWorkspaceRoot root = this.project.getWorkspace().getRoot();
 			for (int i = 0; i < sourceEntriesNumber; i++) {
@@ -184,11 +191,14 @@ public class IndexAllProject extends IndexRequest {
 													if (Util.isExcluded(file, inclusionPatterns, exclusionPatterns))
 														return false;
 												String relativePathString = Util.relativePath(file.getFullPath(), 1/*remove project segment*/);
-												indexedFileNames.put(relativePathString,
-													indexedFileNames.get(relativePathString) == null
-															|| indexLastModified < EFS.getStore(location).fetchInfo().getLastModified()
-														? (Object) file
-														: (Object) OK);
+												if (indexedFileNames.get(relativePathString) == null) {
+													indexedFileNames.put(relativePathString, file);
+												} else if (indexLastModified < EFS.getStore(location).fetchInfo().getLastModified()) {
+													indexedFileNames.put(relativePathString, file);
+													touchedFileNames.add(relativePathString); // its contents may not have changed
+												} else {
+													indexedFileNames.put(relativePathString, OK);
+												}
 											}
 											return false;
 										case IResource.FOLDER :
@@ -207,7 +217,10 @@ public class IndexAllProject extends IndexRequest {
 				}
 			}
 
-			SourceElementParser parser = this.manager.getSourceElementParser(javaProject, null/*requestor will be set by indexer*/);
+			if (!touchedFileNames.isEmpty())
+				skipUnchangedFiles(index, touchedFileNames, indexedFileNames, OK);
+
+			ArrayList sources = new ArrayList(); // files to index
 			Object[] names = indexedFileNames.keyTable;
 			Object[] values = indexedFileNames.valueTable;
 			for (int i = 0, namesLength = names.length; i < namesLength; i++) {
@@ -220,10 +233,16 @@ public class IndexAllProject extends IndexRequest {
 						if (value == DELETED)
 							this.manager.remove(name, this.containerPath);
 						else
-							this.manager.addSource((IFile) value, this.containerPath, parser);
+							sources.add(value);
 					}
 				}
 			}
+			if (!sources.isEmpty()) {
+				IFile[] files = new IFile[sources.size()];
+				sources.toArray(files);
+				SourceElementParser parser = this.manager.getSourceElementParser(javaProject, null/*requestor will be set by indexer*/);
+				this.manager.addSources(files, this.containerPath, parser, javaProject);
+			}
 
 			// request to save index when all cus have been indexed... also sets state to SAVED_STATE
 			this.manager.request(new SaveIndex(this.containerPath, this.manager));
@@ -247,6 +266,35 @@ public class IndexAllProject extends IndexRequest {
 		}
 		return true;
 	}
+	/*
+	 * Marks as OK the given files whose contents did not change since they were indexed, see SourceIndexer.contentHash(char[]).
+	 * Their time stamps changed, for example when they were checked out again by a version control system.
+	 */
+	private void skipUnchangedFiles(Index index, ArrayList fileNames, SimpleLookupTable indexedFileNames, String OK) throws IOException {
+		EntryResult[] entries = index.query(new char[][] {IIndexConstants.CONTENT_HASH}, null, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		if (entries == null) return; // indexed before the content hashes were added
+
+		HashMap contentHashes = new HashMap(); // document name -> key of its CONTENT_HASH entry
+		for (int i = 0, length = entries.length; i < length; i++) {
+			String[] documentNames = entries[i].getDocumentNames(index);
+			for (int j = 0, l = documentNames.length; j < l; j++)
+				contentHashes.put(documentNames[j], entries[i].getWord());
+		}
+		for (int i = 0, length = fileNames.size(); i < length; i++) {
+			if (this.isCancelled) return;
+
+			String fileName = (String) fileNames.get(i);
+			char[] contentHash = (char[]) contentHashes.get(fileName);
+			if (contentHash == null) continue;
+			try {
+				char[] contents = Util.getResourceContentsAsCharArray((IFile) indexedFileNames.get(fileName));
+				if (CharOperation.equals(contentHash, SourceIndexer.contentHash(contents)))
+					indexedFileNames.put(fileName, OK);
+			} catch (JavaScriptModelException e) {
+				// index the file again
+			}
+		}
+	}
 	public int hashCode() {
 		return this.project.hashCode();
 	}
@@ -51,11 +51,14 @@ import org.eclipse.wst.jsdt.internal.core.JavaModelManager;
 import org.eclipse.wst.jsdt.internal.core.JavaProject;
 import org.eclipse.wst.jsdt.internal.core.LibraryFragmentRoot;
 import org.eclipse.wst.jsdt.internal.core.index.DiskIndex;
+import org.eclipse.wst.jsdt.internal.core.index.DiskIndexCache;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
 import org.eclipse.wst.jsdt.internal.core.search.BasicSearchEngine;
 import org.eclipse.wst.jsdt.internal.core.search.PatternSearchJob;
+import org.eclipse.wst.jsdt.internal.core.search.SearchResultCache;
 import org.eclipse.wst.jsdt.internal.core.search.processing.IJob;
 import org.eclipse.wst.jsdt.internal.core.search.processing.JobManager;
+import org.eclipse.wst.jsdt.internal.core.util.Histogram;
 import org.eclipse.wst.jsdt.internal.core.util.Messages;
 import org.eclipse.wst.jsdt.internal.core.util.Util;
 
@@ -69,6 +72,22 @@ public class IndexManager extends JobManager implements IIndexConstants {
 
 	/* need to save ? */
 	private boolean needToSave = false;
+
+	/* number of threads parsing the files of a project or source folder to index, see addSources() */
+	private int parserWorkers = 1;
+
+	/* generations of the indexes, see getGenerations() */
+	// key = containerPath, value = Long, the generation when a change of its index was last requested
+	private SimpleLookupTable generations = new SimpleLookupTable();
+	private long lastGeneration = 0;
+	private long resetGeneration = 0; // generation when indexes were last reset or removed by location
+
+	/* statistics, see toStringStatistics() */
+	public static boolean STATISTICS = false; // report the statistics whenever the indexer becomes idle
+	public final Histogram queryTimes = new Histogram(); // time spent querying an index by a search
+	public final Histogram readWaitTimes = new Histogram(); // time waited by a search for the permission to read an index
+	public final Histogram firstMatchTimes = new Histogram(); // time from the start of a search to its first match
+	private long reportedQueryCount = -1; // number of queries at the last report of the statistics
 	private static final CRC32 checksumCalculator = new CRC32();
 	private IPath javaPluginLocation = null;
 
@@ -123,6 +142,20 @@ public void addSource(IFile resource, IPath containerPath, SourceElementParser p
 	IPath indexLocation = computeIndexLocation(containerPath);
 	scheduleDocumentIndexing(document, containerPath, indexLocation, participant);
 }
+/**
+ * Trigger addition of source files to an index, parsing them on several threads when the
+ * CORE_INDEX_PARSER_WORKERS option is greater than 1 (see AddSourcesToIndex)
+ * Note: the actual operation is performed in background
+ */
+public void addSources(IFile[] files, IPath containerPath, SourceElementParser parser, IJavaScriptProject project) {
+	if (this.parserWorkers <= 1 || files.length < 2) {
+		for (int i = 0, length = files.length; i < length; i++)
+			addSource(files[i], containerPath, parser);
+		return;
+	}
+	if (JavaScriptCore.getPlugin() == null) return;
+	request(new AddSourcesToIndex(files, containerPath, parser, project, this.parserWorkers, this));
+}
 /*
  * Removes unused indexes from disk.
  */
@@ -150,7 +183,7 @@ public void cleanUpIndexes() {
 	}
 	deleteIndexFiles(knownPaths);
 }
-public IPath computeIndexLocation(IPath containerPath) {
+public synchronized IPath computeIndexLocation(IPath containerPath) {
 	IPath indexLocation = (IPath) this.indexLocations.get(containerPath);
 	if (indexLocation == null) {
 		String pathString = containerPath.toOSString();
@@ -194,6 +227,14 @@ public void ensureIndexExists(IPath indexLocation, IPath containerPath) {
 		getIndex(containerPath, indexLocation, true, true);
 	}
 }
+/**
+ * Requests against the same container update the same index, so they must run in order.
+ */
+protected Object getSerializationKey(IJob job) {
+	if (job instanceof IndexRequest)
+		return ((IndexRequest) job).containerPath;
+	return null;
+}
 public SourceElementParser getSourceElementParser(IJavaScriptProject project, ISourceElementRequestor requestor) {
 	// disable task tags to speed up parsing
 	Map options = project.getOptions(true);
@@ -214,6 +255,25 @@ public SourceElementParser getSourceElementParser(IJavaScriptProject project, IS
 
 	return parser;
 }
+/**
+ * Answers the generations of the indexes of the given containers, followed by the generation of the
+ * last reset of all indexes. The generation of an index changes whenever a change of this index is
+ * requested, so a search result computed from these indexes is still valid as long as their generations
+ * did not change (see SearchResultCache).
+ */
+public synchronized long[] getGenerations(IPath[] containerPaths) {
+	int length = containerPaths.length;
+	long[] result = new long[length + 1];
+	for (int i = 0; i < length; i++) {
+		Long generation = (Long) this.generations.get(containerPaths[i]);
+		result[i] = generation == null ? 0 : generation.longValue();
+	}
+	result[length] = this.resetGeneration;
+	return result;
+}
+private synchronized void indexChanged(IPath containerPath) {
+	this.generations.put(containerPath, new Long(++this.lastGeneration));
+}
 /**
  * Returns the index for a given project, according to the following algorithm:
  * - if index is already in memory: answers this one back
@@ -451,28 +511,39 @@ public void indexSourceFolder(JavaProject javaProject, IPath sourceFolder, char[
 	this.request(new AddFolderToIndex(sourceFolder, project, inclusionPatterns, exclusionPatterns, this));
 }
 public synchronized void jobWasCancelled(IPath containerPath) {
+	indexChanged(containerPath);
 	IPath indexLocation = computeIndexLocation(containerPath);
 	Index index = getIndex(indexLocation);
 	if (index != null) {
 		index.monitor = null;
+		index.discard();
 		this.indexes.removeKey(indexLocation);
 	}
 	updateIndexState(indexLocation, UNKNOWN_STATE);
 }
 /**
- * Advance to the next available job, once the current one has been completed.
+ * Advance to the next available job, once the given one has been completed.
  * Note: clients awaiting until the job count is zero are still waiting at this point.
  */
-protected synchronized void moveToNextJob() {
+protected synchronized void moveToNextJob(IJob completedJob) {
 	// remember that one job was executed, and we will need to save indexes at some point
 	needToSave = true;
-	super.moveToNextJob();
+	super.moveToNextJob(completedJob);
 }
 /**
  * No more job awaiting.
  */
 protected void notifyIdle(long idlingTime){
-	if (idlingTime > 1000 && needToSave) saveIndexes();
+	if (idlingTime > 1000 && needToSave)
+		saveIndexes();
+	if (STATISTICS && idlingTime > 1000) {
+		// report once per idle period, searches do not need to save the indexes
+		long queryCount = this.queryTimes.getCount();
+		if (queryCount != this.reportedQueryCount) {
+			this.reportedQueryCount = queryCount;
+			Util.verbose(toStringStatistics());
+		}
+	}
 }
 /**
  * Name of the background process
@@ -521,6 +592,8 @@ public synchronized Index recreateIndex(IPath containerPath) {
 		IPath indexLocation = computeIndexLocation(containerPath);
 		Index index = getIndex(indexLocation);
 		ReadWriteMonitor monitor = index == null ? null : index.monitor;
+		if (index != null)
+			index.discard(); // about to overwrite its index file
 
 		if (VERBOSE)
 			Util.verbose("-> recreating index: "+indexLocation+" for path: "+containerPathString); //$NON-NLS-1$ //$NON-NLS-2$
@@ -551,11 +624,13 @@ public void remove(String containerRelativePath, IPath indexedContainer){
 public synchronized void removeIndex(IPath containerPath) {
 	if (VERBOSE)
 		Util.verbose("removing index " + containerPath); //$NON-NLS-1$
+	indexChanged(containerPath);
 	IPath indexLocation = computeIndexLocation(containerPath);
 	Index index = getIndex(indexLocation);
 	File indexFile = null;
 	if (index != null) {
 		index.monitor = null;
+		index.discard();
 		indexFile = index.getIndexFile();
 	}
 	if (indexFile == null)
@@ -569,6 +644,7 @@ public synchronized void removeIndex(IPath containerPath) {
  * Removes all indexes whose paths start with (or are equal to) the given path.
  */
 public synchronized void removeIndexPath(IPath path) {
+	this.resetGeneration = ++this.lastGeneration;
 	Object[] keyTable = this.indexes.keyTable;
 	Object[] valueTable = this.indexes.valueTable;
 	IPath[] locations = null;
@@ -581,6 +657,7 @@ public synchronized void removeIndexPath(IPath path) {
 		if (path.isPrefixOf(indexLocation)) {
 			Index index = (Index) valueTable[i];
 			index.monitor = null;
+			index.discard();
 			if (locations == null)
 				locations = new IPath[max];
 			locations[count++] = indexLocation;
@@ -630,17 +707,57 @@ public void removeSourceFolderFromIndex(JavaProject javaProject, IPath sourceFol
 
 	this.request(new RemoveFolderFromIndex(sourceFolder, inclusionPatterns, exclusionPatterns, project, this));
 }
+/**
+ * Requests the given job, changing the generation of the index it updates (see getGenerations()).
+ */
+public synchronized void request(IJob job) {
+	if (job instanceof IndexRequest && !(job instanceof SaveIndex))
+		indexChanged(((IndexRequest) job).containerPath);
+	super.request(job);
+}
 /**
  * Flush current state
  */
 public synchronized void reset() {
+	this.resetGeneration = ++this.lastGeneration;
+	String workers = JavaScriptCore.getOption(JavaScriptCore.CORE_INDEX_WORKERS);
+	if (workers != null) {
+		try {
+			setWorkerCount(Integer.parseInt(workers));
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+	}
+	String parsers = JavaScriptCore.getOption(JavaScriptCore.CORE_INDEX_PARSER_WORKERS);
+	if (parsers != null) {
+		try {
+			this.parserWorkers = Math.max(1, Integer.parseInt(parsers));
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+	}
 	super.reset();
 	if (this.indexes != null) {
+		Object[] valueTable = this.indexes.valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++)
+			if (valueTable[i] != null)
+				((Index) valueTable[i]).discard();
 		this.indexes = new SimpleLookupTable();
 		this.indexStates = null;
 	}
 	this.indexLocations = new SimpleLookupTable();
 	this.javaPluginLocation = null;
+
+	String cacheSize = JavaScriptCore.getOption(JavaScriptCore.CORE_INDEX_CACHE_SIZE);
+	if (cacheSize != null) {
+		try {
+			int megabytes = Integer.parseInt(cacheSize);
+			if (megabytes >= 0)
+				DiskIndexCache.setSpaceLimit(Math.min(megabytes, Integer.MAX_VALUE >> 20) << 20);
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+	}
 }
 /**
  * Resets the index for a given path.
@@ -680,12 +797,11 @@ public void saveIndex(Index index) throws IOException {
 	}
 	synchronized (this) {
 		IPath containerPath = new Path(index.containerPath);
-		if (this.jobEnd > this.jobStart) {
-			for (int i = this.jobEnd; i > this.jobStart; i--) { // skip the current job
-				IJob job = this.awaitingJobs[i];
-				if (job instanceof IndexRequest)
-					if (((IndexRequest) job).containerPath.equals(containerPath)) return;
-			}
+		for (int i = this.jobEnd; i >= this.jobStart; i--) {
+			IJob job = this.awaitingJobs[i];
+			if (isJobExecuting(job)) continue; // skip the current jobs
+			if (job instanceof IndexRequest)
+				if (((IndexRequest) job).containerPath.equals(containerPath)) return;
 		}
 		IPath indexLocation = computeIndexLocation(containerPath);
 		updateIndexState(indexLocation, SAVED_STATE);
@@ -776,6 +892,42 @@ public String toString() {
 	}
 	return buffer.toString();
 }
+/**
+ * Answers the statistics of the loaded indexes, of the index queries and of the indexing jobs,
+ * to diagnose slow searches.
+ */
+public String toStringStatistics() {
+	StringBuffer buffer = new StringBuffer("Index manager statistics:\n"); //$NON-NLS-1$
+	Index[] loaded;
+	synchronized (this) {
+		loaded = new Index[this.indexes.elementSize];
+		int count = 0;
+		Object[] valueTable = this.indexes.valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++)
+			if (valueTable[i] != null)
+				loaded[count++] = (Index) valueTable[i];
+	}
+	buffer.append("Loaded indexes: ").append(loaded.length).append('\n'); //$NON-NLS-1$
+	long totalSize = 0;
+	for (int i = 0, l = loaded.length; i < l; i++) {
+		Index index = loaded[i];
+		File indexFile = index.getIndexFile();
+		long size = indexFile == null ? 0 : indexFile.length();
+		totalSize += size;
+		buffer.append(index.containerPath).append(": "); //$NON-NLS-1$
+		buffer.append(size).append(" bytes, "); //$NON-NLS-1$
+		buffer.append(index.getChangedDocumentCount()).append(" changed documents in memory\n"); //$NON-NLS-1$
+	}
+	buffer.append("Index files: ").append(totalSize).append(" bytes\n"); //$NON-NLS-1$ //$NON-NLS-2$
+	buffer.append("Queries: ").append(this.queryTimes).append('\n'); //$NON-NLS-1$
+	buffer.append("Waits for read permission: ").append(this.readWaitTimes).append('\n'); //$NON-NLS-1$
+	buffer.append("Searches until their first match: ").append(this.firstMatchTimes).append('\n'); //$NON-NLS-1$
+	buffer.append(SearchResultCache.toStringStatistics()).append('\n');
+	buffer.append(DiskIndexCache.toStringStatistics()).append('\n');
+	buffer.append(Index.toStringStatistics()).append('\n');
+	buffer.append(super.toStringStatistics());
+	return buffer.toString();
+}
 
 private char[][] readIndexState(String dirOSString) {
 	try {
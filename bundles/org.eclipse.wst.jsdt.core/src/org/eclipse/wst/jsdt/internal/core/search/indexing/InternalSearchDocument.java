@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core.search.indexing;
 
+import java.util.ArrayList;
+
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
 
@@ -20,13 +22,44 @@ public class InternalSearchDocument {
 	Index index;
 	private String containerRelativePath;
 	SourceElementParser parser;
+	// category and key pairs recorded while indexing without the index, see bufferIndexEntries()
+	private ArrayList bufferedEntries;
+	private boolean removeBufferedDocument;
 	/*
 	 * Hidden by API SearchDocument subclass
 	 */
 	public void addIndexEntry(char[] category, char[] key) {
-		if (this.index != null)
+		if (this.bufferedEntries != null) {
+			this.bufferedEntries.add(category);
+			this.bufferedEntries.add(key);
+		} else if (this.index != null)
 			index.addIndexEntry(category, key, getContainerRelativePath());
 	}
+	/*
+	 * Records the index entries of this document until addBufferedEntries(Index) is called, so that
+	 * the document can be indexed without holding the write lock of its index (see AddSourcesToIndex).
+	 */
+	void bufferIndexEntries() {
+		this.bufferedEntries = new ArrayList();
+		this.removeBufferedDocument = false;
+	}
+	/*
+	 * Adds the entries recorded since bufferIndexEntries() to the given index.
+	 * The write lock of the index must be held.
+	 */
+	void addBufferedEntries(Index targetIndex) {
+		ArrayList entries = this.bufferedEntries;
+		this.bufferedEntries = null;
+		this.index = targetIndex;
+		try {
+			if (this.removeBufferedDocument)
+				removeAllIndexEntries();
+			for (int i = 0, size = entries.size(); i < size; i += 2)
+				addIndexEntry((char[]) entries.get(i), (char[]) entries.get(i + 1));
+		} finally {
+			this.index = null;
+		}
+	}
 	private String getContainerRelativePath() {
 		if (this.containerRelativePath == null)
 			this.containerRelativePath = this.index.containerRelativePath(getPath());
@@ -36,7 +69,10 @@ public class InternalSearchDocument {
 	 * Hidden by API SearchDocument subclass
 	 */
 	public void removeAllIndexEntries() {
-		if (this.index != null)
+		if (this.bufferedEntries != null) {
+			this.bufferedEntries.clear();
+			this.removeBufferedDocument = true;
+		} else if (this.index != null)
 			index.remove(getContainerRelativePath());
 	}
 	/*
@@ -13,6 +13,10 @@ package org.eclipse.wst.jsdt.internal.core.search.indexing;
 /**
  * Monitor ensuring no more than one writer working concurrently.
  * Multiple readers are allowed to perform simultaneously.
+ *
+ * Writers are not starved by a continuous flow of readers: once a writer waits, new readers
+ * wait for it. Readers are not starved by consecutive writers either: the readers waiting when
+ * a writer is done are let in before the next writer.
  */
 public class ReadWriteMonitor {
 
@@ -22,31 +26,69 @@ public class ReadWriteMonitor {
  * >0 : reading (number of concurrent readers)
  */
 private int status = 0;
+
+private int waitingReaders = 0;
+private int waitingWriters = 0;
+/**
+ * Set when a writer is done while readers are waiting, until these readers got in.
+ * Meanwhile readers do not wait for the waiting writers.
+ */
+private boolean readersTurn = false;
+/**
+ * Number of readers which entered with enterBackgroundRead(), waiting writers cannot start before they are
+ * done so readers do not wait for these writers.
+ */
+private int backgroundReaders = 0;
+
 /**
  * Concurrent reading is allowed
- * Blocking only when already writing.
+ * Blocking only when already writing, or when a writer is waiting.
  */
 public synchronized void enterRead() {
-	while (status < 0) {
+	if (mustWaitToRead()) {
+		this.waitingReaders++;
 		try {
-			wait();
-		} catch(InterruptedException e) {
-			// ignore
+			do {
+				try {
+					wait();
+				} catch(InterruptedException e) {
+					// ignore
+				}
+			} while (mustWaitToRead());
+		} finally {
+			if (--this.waitingReaders == 0)
+				this.readersTurn = false;
 		}
 	}
 	status++;
 }
+/**
+ * Enters read for a long time, for example to merge the index in the background.
+ * Readers keep being allowed until exitBackgroundRead() or exitBackgroundReadEnterWrite()
+ * even if writers wait, since these writers cannot start before then anyway.
+ */
+public synchronized void enterBackgroundRead() {
+	enterRead();
+	if (this.backgroundReaders++ == 0 && this.waitingReaders > 0)
+		notifyAll(); // readers waiting for a writer can come in
+}
 /**
  * Only one writer at a time is allowed to perform
- * Blocking only when already writing or reading.
+ * Blocking only when already writing or reading, or when the readers waiting
+ * for the last writer are not in yet.
  */
 public synchronized void enterWrite() {
-	while (status != 0) {
-		try {
-			wait();
-		} catch(InterruptedException e) {
-			// ignore
+	this.waitingWriters++;
+	try {
+		while (status != 0 || (this.readersTurn && this.waitingReaders > 0)) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				// ignore
+			}
 		}
+	} finally {
+		this.waitingWriters--;
 	}
 	status--;
 }
@@ -55,7 +97,16 @@ public synchronized void enterWrite() {
  */
 public synchronized void exitRead() {
 
-	if (--status == 0) notifyAll();
+	if (--status == 0) {
+		if (this.waitingWriters > 0)
+			notifyAll();
+	} else if (status == 1 && this.waitingWriters > 0) {
+		notifyAll(); // possibly waiting in exitBackgroundReadEnterWrite()
+	}
+}
+public synchronized void exitBackgroundRead() {
+	this.backgroundReaders--;
+	exitRead();
 }
 /**
  * When writing is over, all readers and possible
@@ -63,7 +114,12 @@ public synchronized void exitRead() {
  */
 public synchronized void exitWrite() {
 
-	if (++status == 0) notifyAll();
+	if (++status == 0) {
+		if (this.waitingReaders > 0)
+			this.readersTurn = true;
+		if (this.waitingReaders > 0 || this.waitingWriters > 0)
+			notifyAll();
+	}
 }
 /**
  * Atomic exitRead/enterWrite: Allows to keep monitor in between
@@ -77,6 +133,27 @@ public synchronized boolean exitReadEnterWrite() {
 	status = -1;
 	return true;
 }
+/**
+ * Atomic exitBackgroundRead/enterWrite which waits until the other readers are done, so that
+ * no writer can change the index in between. New readers wait meanwhile, as for a waiting writer.
+ * Only one reader at a time may wait for write permission this way, two would wait for each other.
+ */
+public synchronized void exitBackgroundReadEnterWrite() {
+	this.backgroundReaders--;
+	this.waitingWriters++;
+	try {
+		while (status != 1) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				// ignore
+			}
+		}
+	} finally {
+		this.waitingWriters--;
+	}
+	status = -1;
+}
 /**
  * Atomic exitWrite/enterRead: Allows to keep monitor in between
  * exit write and next enter read.
@@ -89,10 +166,14 @@ public synchronized boolean exitReadEnterWrite() {
  *   monitor.enterRead();
  * }
  * </pre>
+ * except that the caller does not wait for writers.
  */
 public synchronized void exitWriteEnterRead() {
 	this.exitWrite();
-	this.enterRead();
+	status++;
+}
+private boolean mustWaitToRead() {
+	return status < 0 || (this.waitingWriters > 0 && !this.readersTurn && this.backgroundReaders == 0);
 }
 public String toString() {
 	StringBuffer buffer = new StringBuffer();
@@ -92,7 +92,9 @@ public class SourceIndexer extends AbstractIndexer implements SuffixConstants {
 			parser.parseCompilationUnit(compilationUnit, true/*full parse*/);
 		} catch (Exception e) {
 			Logger.logException("Error while indexing document", e);
+			return; // index the document again next time, even if it does not change
 		}
+		addIndexEntry(CONTENT_HASH, contentHash(source));
 	}
 	public void indexMetadata() {
 		// Create a new Parser
@@ -120,7 +122,20 @@ public class SourceIndexer extends AbstractIndexer implements SuffixConstants {
 		
 		LibraryAPIs apis = MetadataReader.readAPIsFromString(new String(source),documentPath);
 		new MetadataSourceElementNotifier(apis,requestor).notifyRequestor();
-		
+		addIndexEntry(CONTENT_HASH, contentHash(source));
+	}
+	/**
+	 * Answers the key of the CONTENT_HASH entry of a document with the given contents: a 64-bit FNV-1a hash
+	 * of the characters followed by their number. IndexAllProject does not index a document again while
+	 * its contents keep the same key, even if the time stamp of its file changes.
+	 */
+	public static char[] contentHash(char[] contents) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0, length = contents.length; i < length; i++) {
+			hash ^= contents[i];
+			hash *= 0x100000001b3L;
+		}
+		return (Long.toHexString(hash) + ':' + contents.length).toCharArray();
 	}
 	public void indexArchive() {
 		/*
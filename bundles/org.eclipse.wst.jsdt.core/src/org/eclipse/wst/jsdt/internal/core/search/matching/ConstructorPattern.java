@@ -393,25 +393,8 @@ public class ConstructorPattern extends JavaSearchPattern {
 				break;
 		}
 		
-		//run a search for each search key
-		for(int i = 0; i < keys.length; ++i) {
-			//run search
-			EntryResult[] additionalResults = index.query(getIndexCategories(), keys[i], matchRules[i]);
-			
-			//collect results
-			if(additionalResults != null && additionalResults.length > 0) {
-				if(results == null) {
-					results = additionalResults;
-				} else {
-					EntryResult[] existingResults = results;
-					
-					results = new EntryResult[existingResults.length + additionalResults.length];
-					
-					System.arraycopy(existingResults, 0, results, 0, existingResults.length);
-					System.arraycopy(additionalResults, 0, results, existingResults.length, additionalResults.length);
-				}
-			}
-		}
+		//run a single batched search for all the search keys
+		results = InternalSearchPattern.queryIn(index, getIndexCategories(), keys, matchRules);
 		
 		// remove duplicates
 		int duplicateCount = 0;
@@ -481,6 +464,20 @@ public class ConstructorPattern extends JavaSearchPattern {
 		return QualificationHelpers.createFullyQualifiedNames(this.parameterQualifications, this.parameterSimpleNames);
 	}
 	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.findDeclarations);
+		appendKey(key, this.findReferences);
+		appendKey(key, this.declaringQualification);
+		appendKey(key, this.declaringSimpleName);
+		appendKey(key, this.parameterQualifications);
+		appendKey(key, this.parameterSimpleNames);
+		appendKey(key, this.parameterNames);
+		appendKey(key, this.modifiers);
+		appendKey(key, this.fSearchPrefix);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
@@ -324,25 +324,8 @@ public class FieldPattern extends VariablePattern {
 			matchRules[1] = getMatchRule();
 		}
 	
-		//run a search for each search key
-		for (int i = 0; i < keys.length; ++i) {
-			//run search
-			EntryResult[] additionalResults = index.query(getIndexCategories(), keys[i], matchRules[i]);
-			
-			//collect results
-			if (additionalResults != null && additionalResults.length > 0) {
-				if (results == null) {
-					results = additionalResults;
-				} else {
-					EntryResult[] existingResults = results;
-					
-					results = new EntryResult[existingResults.length + additionalResults.length];
-					
-					System.arraycopy(existingResults, 0, results, 0, existingResults.length);
-					System.arraycopy(additionalResults, 0, results, existingResults.length, additionalResults.length);
-				}
-			}
-		}		
+		//run a single batched search for all the search keys
+		results = InternalSearchPattern.queryIn(index, getIndexCategories(), keys, matchRules);		
 		return results;
 	}
 	public char[][] getIndexCategories() {
@@ -431,6 +414,17 @@ public class FieldPattern extends VariablePattern {
 		return false;
 	}
 	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.declaringQualification);
+		appendKey(key, this.declaringSimpleName);
+		appendKey(key, this.typeQualification);
+		appendKey(key, this.typeSimpleName);
+		appendKey(key, this.modifiers);
+		appendKey(key, this.isVar);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
@@ -120,5 +120,32 @@ public abstract class InternalSearchPattern {
 		SearchPattern pattern = (SearchPattern) this;
 		return index.query(pattern.getIndexCategories(), pattern.getIndexKey(), pattern.getMatchRule());
 	}
+	/**
+	 * Query the given categories with several keys at once, see {@link Index#query(char[][][], char[][], int[])}.
+	 * Answers the entries of all the keys, or null if none matched.
+	 */
+	static EntryResult[] queryIn(Index index, char[][] categories, char[][] keys, int[] matchRules) throws IOException {
+		int length = keys.length;
+		char[][][] keyCategories = new char[length][][];
+		for (int i = 0; i < length; i++)
+			keyCategories[i] = categories;
+		EntryResult[][] entries = index.query(keyCategories, keys, matchRules);
+
+		int count = 0;
+		for (int i = 0; i < length; i++)
+			if (entries[i] != null)
+				count += entries[i].length;
+		if (count == 0) return null;
+
+		EntryResult[] results = new EntryResult[count];
+		count = 0;
+		for (int i = 0; i < length; i++) {
+			if (entries[i] != null) {
+				System.arraycopy(entries[i], 0, results, count, entries[i].length);
+				count += entries[i].length;
+			}
+		}
+		return results;
+	}
 
 }
@@ -160,6 +160,75 @@ public class JavaSearchPattern extends SearchPattern implements IIndexConstants
 		return true;
 	}
 
+	/**
+	 * Appends every field which selects the matches of this pattern to the given key, so that two patterns
+	 * with the same key find the same matches (see SearchResultCache). Subclasses append their own fields
+	 * after the fields of their superclass.
+	 */
+	public StringBuffer printKey(StringBuffer key) {
+		key.append(getClass().getName());
+		appendKey(key, getMatchRule());
+		appendKey(key, ((InternalSearchPattern) this).kind);
+		appendKey(key, ((InternalSearchPattern) this).mustResolve);
+		appendKey(key, ((InternalSearchPattern) this).focus);
+		appendKey(key, this.isCaseSensitive);
+		appendKey(key, this.isCamelCase);
+		appendKey(key, this.matchMode);
+		appendKey(key, this.matchCompatibility);
+		appendKey(key, this.flags);
+		appendKey(key, this.typeSignatures);
+		appendKey(key, this.typeArguments);
+		return key;
+	}
+
+	static void appendKey(StringBuffer key, boolean value) {
+		key.append('|').append(value);
+	}
+
+	static void appendKey(StringBuffer key, int value) {
+		key.append('|').append(value);
+	}
+
+	static void appendKey(StringBuffer key, char[] value) {
+		key.append('|');
+		if (value == null)
+			key.append('-');
+		else
+			key.append(value.length).append(':').append(value); // the length keeps names containing separators apart
+	}
+
+	static void appendKey(StringBuffer key, char[][] value) {
+		key.append('|');
+		if (value == null) {
+			key.append('-');
+			return;
+		}
+		key.append(value.length).append('[');
+		for (int i = 0, length = value.length; i < length; i++)
+			appendKey(key, value[i]);
+		key.append(']');
+	}
+
+	static void appendKey(StringBuffer key, char[][][] value) {
+		key.append('|');
+		if (value == null) {
+			key.append('-');
+			return;
+		}
+		key.append(value.length).append('[');
+		for (int i = 0, length = value.length; i < length; i++)
+			appendKey(key, value[i]);
+		key.append(']');
+	}
+
+	static void appendKey(StringBuffer key, Object element) {
+		key.append('|');
+		if (element instanceof IJavaScriptElement)
+			key.append(((IJavaScriptElement) element).getHandleIdentifier());
+		else
+			key.append(element == null ? "-" : element.toString()); //$NON-NLS-1$
+	}
+
 	protected StringBuffer print(StringBuffer output) {
 		output.append(", "); //$NON-NLS-1$
 		if (hasTypeArguments() && hasSignatures()) {
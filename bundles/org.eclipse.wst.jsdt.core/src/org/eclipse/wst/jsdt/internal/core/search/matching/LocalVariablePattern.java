@@ -101,6 +101,11 @@ public SearchPattern getBlankPattern() {
 public void decodeIndexKey(char[] key) {
 	this.name = key;
 }
+public StringBuffer printKey(StringBuffer key) {
+	super.printKey(key);
+	appendKey(key, this.localVariable);
+	return key;
+}
 protected StringBuffer print(StringBuffer output) {
 	if (this.findDeclarations) {
 		output.append(this.findReferences
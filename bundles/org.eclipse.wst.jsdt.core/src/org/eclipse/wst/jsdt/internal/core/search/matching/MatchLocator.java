@@ -21,6 +21,7 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.wst.jsdt.core.IClassFile;
 import org.eclipse.wst.jsdt.core.IField;
@@ -32,6 +33,7 @@ import org.eclipse.wst.jsdt.core.IPackageFragment;
 import org.eclipse.wst.jsdt.core.ISourceRange;
 import org.eclipse.wst.jsdt.core.IType;
 import org.eclipse.wst.jsdt.core.ITypeRoot;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
 import org.eclipse.wst.jsdt.core.JavaScriptModelException;
 import org.eclipse.wst.jsdt.core.Signature;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
@@ -201,6 +203,15 @@ public long resultCollectorTime = 0;
 int progressStep;
 int progressWorked;
 
+// number of threads locating the matches of a project, see locateMatchesInParallel()
+int locatorWorkers = 1;
+// smallest number of possible matches located at once by a thread
+static final int MIN_PARALLEL_CHUNK = 10;
+// number of possible matches located by the first chunk of a search which must resolve them
+static final int FIRST_CHUNK = 20;
+// number of possible matches located by the next chunk, doubles up to MAX_AT_ONCE
+int nextChunkSize = FIRST_CHUNK;
+
 // Binding resolution and cache
 CompilationUnitScope unitScope;
 SimpleLookupTable bindings;
@@ -1183,13 +1194,153 @@ protected void locateMatches(JavaProject javaProject, PossibleMatchSet matchSet,
 		this.progressMonitor.worked( expected-length);
 	}
 	// locate matches (processed matches are limited to avoid problem while using VM default memory heap size)
-	for (int index = 0; index < length;) {
-		int max = Math.min(MAX_AT_ONCE, length - index);
-		locateMatches(javaProject, possibleMatches, index, max);
-		index += max;
+	if (this.locatorWorkers > 1 && length >= 2 * MIN_PARALLEL_CHUNK && canLocateInParallel(this.pattern)) {
+		locateMatchesInParallel(javaProject, possibleMatches);
+	} else {
+		// the matches which must be resolved are reported once their whole chunk is resolved: the chunks start small
+		// and double up to MAX_AT_ONCE so that the first matches are reported without waiting for MAX_AT_ONCE units
+		boolean mustResolve = ((InternalSearchPattern) this.pattern).mustResolve;
+		for (int index = 0; index < length;) {
+			int max = Math.min(mustResolve ? this.nextChunkSize : MAX_AT_ONCE, length - index);
+			locateMatches(javaProject, possibleMatches, index, max);
+			index += max;
+			if (mustResolve)
+				this.nextChunkSize = Math.min(MAX_AT_ONCE, this.nextChunkSize * 2);
+		}
 	}
 	this.patternLocator.clear();
 }
+/*
+ * The patterns searching the declarations of the elements referenced by a given element remember
+ * the declarations they already found, they cannot be matched by several threads.
+ */
+private boolean canLocateInParallel(SearchPattern searchPattern) {
+	if (searchPattern instanceof OrPattern) {
+		SearchPattern[] patterns = ((OrPattern) searchPattern).patterns;
+		for (int i = 0, length = patterns.length; i < length; i++)
+			if (!canLocateInParallel(patterns[i])) return false;
+		return true;
+	}
+	return !(searchPattern instanceof DeclarationOfAccessedFieldsPattern
+		|| searchPattern instanceof DeclarationOfReferencedMethodsPattern
+		|| searchPattern instanceof DeclarationOfReferencedTypesPattern);
+}
+/*
+ * Locates the matches amongst the possible matches of a project on locatorWorkers threads.
+ * The possible matches are split in chunks, each thread locates the matches of one chunk at a time
+ * with its own MatchLocator, i.e. its own parser and lookup environment. The calling thread reports
+ * the matches chunk after chunk, so they are reported in the same order as by a sequential search.
+ */
+protected void locateMatchesInParallel(final JavaProject javaProject, final PossibleMatch[] possibleMatches) throws CoreException {
+	final int length = possibleMatches.length;
+	int workerCount = this.locatorWorkers;
+	// as many possible matches in memory at once as when locating them sequentially
+	final int chunkSize = Math.max(MIN_PARALLEL_CHUNK, Math.min(MAX_AT_ONCE / workerCount, (length + workerCount - 1) / workerCount));
+	final int chunkCount = (length + chunkSize - 1) / chunkSize;
+	final Object[] results = new Object[chunkCount]; // the matches of each chunk, or the exception raised while locating them
+	final int[] nextChunk = new int[1];
+	final boolean[] stopped = new boolean[1];
+	final IProgressMonitor monitor = this.progressMonitor;
+	class LocateLoop implements Runnable {
+		MatchLocator locator;
+		LocateLoop(MatchLocator locator) {
+			this.locator = locator;
+		}
+		public void run() {
+			try {
+				while (true) {
+					int chunk;
+					synchronized (results) {
+						if (stopped[0] || (chunk = nextChunk[0]++) >= chunkCount) return;
+					}
+					final ArrayList matches = new ArrayList();
+					this.locator.requestor = new SearchRequestor() {
+						public void acceptSearchMatch(SearchMatch match) {
+							matches.add(match);
+						}
+					};
+					Object result;
+					try {
+						int start = chunk * chunkSize;
+						this.locator.locateMatches(javaProject, possibleMatches, start, Math.min(chunkSize, length - start));
+						result = matches;
+					} catch (CoreException e) {
+						result = e;
+					} catch (RuntimeException e) {
+						result = e;
+					} catch (Error e) {
+						result = e;
+					}
+					synchronized (results) {
+						results[chunk] = result;
+						results.notifyAll();
+					}
+				}
+			} finally {
+				if (this.locator.nameEnvironment != null)
+					this.locator.nameEnvironment.cleanup();
+			}
+		}
+	}
+	Thread[] workers = new Thread[Math.min(workerCount, chunkCount)];
+	for (int i = 0; i < workers.length; i++) {
+		// progress is reported by the calling thread, the workers only check for cancellation
+		MatchLocator locator = new MatchLocator(this.pattern, null, this.scope, new NullProgressMonitor() {
+			public boolean isCanceled() {
+				return monitor != null && monitor.isCanceled();
+			}
+		});
+		locator.workingCopies = this.workingCopies;
+		locator.handleFactory = new HandleFactory();
+		locator.bindings = new SimpleLookupTable();
+		locator.progressStep = Integer.MAX_VALUE;
+		locator.patternLocator.initializePolymorphicSearch(this.patternLocator);
+		workers[i] = new Thread(new LocateLoop(locator), "JavaScript Match Locator " + (i + 1)); //$NON-NLS-1$
+		workers[i].setDaemon(true);
+		workers[i].start();
+	}
+	try {
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			Object result;
+			synchronized (results) {
+				while ((result = results[chunk]) == null) {
+					try {
+						results.wait();
+					} catch (InterruptedException e) {
+						// ignore
+					}
+				}
+				results[chunk] = null;
+			}
+			if (result instanceof CoreException) throw (CoreException) result;
+			if (result instanceof RuntimeException) throw (RuntimeException) result;
+			if (result instanceof Error) throw (Error) result;
+
+			ArrayList matches = (ArrayList) result;
+			for (int i = 0, size = matches.size(); i < size; i++)
+				this.requestor.acceptSearchMatch((SearchMatch) matches.get(i));
+			if (this.progressMonitor != null) {
+				for (int i = chunk * chunkSize, end = Math.min(i + chunkSize, length); i < end; i++) {
+					this.progressWorked++;
+					if ((this.progressWorked%this.progressStep)==0) this.progressMonitor.worked(this.progressStep);
+				}
+			}
+		}
+	} finally {
+		synchronized (results) {
+			stopped[0] = true;
+		}
+		for (int i = 0; i < workers.length; i++) {
+			while (workers[i].isAlive()) {
+				try {
+					workers[i].join();
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+		}
+	}
+}
 /**
  * Locate the matches in the given files and report them using the search requestor.
  */
@@ -1221,6 +1372,15 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 
 	JavaModelManager manager = JavaModelManager.getJavaModelManager();
 	this.bindings = new SimpleLookupTable();
+	this.nextChunkSize = FIRST_CHUNK;
+	String workers = JavaScriptCore.getOption(JavaScriptCore.CORE_SEARCH_LOCATOR_WORKERS);
+	if (workers != null) {
+		try {
+			this.locatorWorkers = Math.max(1, Integer.parseInt(workers));
+		} catch (NumberFormatException e) {
+			// ignore
+		}
+	}
 	try {
 		// optimize access to zip files during search operation
 		manager.cacheZipFiles();
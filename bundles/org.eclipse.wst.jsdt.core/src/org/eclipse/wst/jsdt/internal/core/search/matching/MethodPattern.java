@@ -448,6 +448,23 @@ public class MethodPattern extends JavaSearchPattern  {
 		return index.query(getIndexCategories(), key, matchRuleToUse); // match rule is irrelevant when the key is null
 	}
 	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.selector);
+		appendKey(key, this.parameterQualifications);
+		appendKey(key, this.parameterSimpleNames);
+		appendKey(key, this.parameterNames);
+		appendKey(key, this.returnQualification);
+		appendKey(key, this.returnSimpleName);
+		appendKey(key, this.declaringQualification);
+		appendKey(key, this.declaringSimpleName);
+		appendKey(key, this.modifiers);
+		appendKey(key, this.findDeclarations);
+		appendKey(key, this.findReferences);
+		appendKey(key, this.isFunction);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
@@ -119,14 +119,15 @@ public class MultiTypeDeclarationPattern extends TypeDeclarationPattern {
 	}
 
 	/**
-	 * <p>Iterates over all of the types names to match on for this pattern and then uses {@link TypeDeclarationPattern#queryIn(Index)}
-	 * to actually do the querying.</p>
+	 * <p>Iterates over all of the types names to match on for this pattern, collecting the index keys of each one
+	 * with {@link TypeDeclarationPattern#getIndexKeys(int[][])}, and then queries the index for all of them at once.</p>
 	 * 
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.TypeDeclarationPattern#queryIn(org.eclipse.wst.jsdt.internal.core.index.Index)
 	 */
 	EntryResult[] queryIn(Index index) throws IOException {
 		
-		EntryResult[] results = null;
+		char[][] keys = CharOperation.NO_CHAR_CHAR;
+		int[] matchRules = new int[0];
 		
 		//loop each type
 		int typesLength = this.getTypesLength();
@@ -145,21 +146,15 @@ public class MultiTypeDeclarationPattern extends TypeDeclarationPattern {
 				this.qualification = null;
 			}
 			
-			//run query using parent function now that one simple name and one qualification have been set
-			EntryResult[] additionalResults = super.queryIn(index);
-			
-			//collect results
-			if(additionalResults != null && additionalResults.length > 0) {
-				if(results == null) {
-					results = additionalResults;
-				} else {
-					EntryResult[] existingResults = results;
-					
-					results = new EntryResult[existingResults.length + additionalResults.length];
-					
-					System.arraycopy(existingResults, 0, results, 0, existingResults.length);
-					System.arraycopy(additionalResults, 0, results, existingResults.length, additionalResults.length);
-				}
+			//collect keys using parent function now that one simple name and one qualification have been set
+			int[][] typeMatchRules = new int[1][];
+			char[][] typeKeys = getIndexKeys(typeMatchRules);
+			if(typeKeys != null && typeKeys.length > 0) {
+				int length = keys.length;
+				System.arraycopy(keys, 0, keys = new char[length + typeKeys.length][], 0, length);
+				System.arraycopy(typeKeys, 0, keys, length, typeKeys.length);
+				System.arraycopy(matchRules, 0, matchRules = new int[length + typeKeys.length], 0, length);
+				System.arraycopy(typeMatchRules[0], 0, matchRules, length, typeKeys.length);
 			}
 		}
 		
@@ -167,7 +162,15 @@ public class MultiTypeDeclarationPattern extends TypeDeclarationPattern {
 		this.simpleName = null;
 		this.qualification = null;
 		
-		return results;
+		//run a single batched search for the keys of all the types
+		return keys.length == 0 ? null : InternalSearchPattern.queryIn(index, getIndexCategories(), keys, matchRules);
+	}
+	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.fSimpleNames);
+		appendKey(key, this.fQualifications);
+		return key;
 	}
 
 	/**
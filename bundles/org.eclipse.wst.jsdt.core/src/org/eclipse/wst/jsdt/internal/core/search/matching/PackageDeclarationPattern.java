@@ -25,6 +25,11 @@ EntryResult[] queryIn(Index index) {
 	// package declarations are not indexed
 	return null;
 }
+public StringBuffer printKey(StringBuffer key) {
+	super.printKey(key);
+	appendKey(key, this.pkgName);
+	return key;
+}
 protected StringBuffer print(StringBuffer output) {
 	output.append("PackageDeclarationPattern: <"); //$NON-NLS-1$
 	if (this.pkgName != null)
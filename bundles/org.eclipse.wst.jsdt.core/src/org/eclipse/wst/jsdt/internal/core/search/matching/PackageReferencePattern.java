@@ -66,6 +66,11 @@ protected void resetQuery() {
 	/* walk the segments from end to start as it will find less potential references using 'lang' than 'java' */
 	this.currentSegment = this.segments.length - 1;
 }
+public StringBuffer printKey(StringBuffer key) {
+	super.printKey(key);
+	appendKey(key, this.pkgName);
+	return key;
+}
 protected StringBuffer print(StringBuffer output) {
 	output.append("PackageReferencePattern: <"); //$NON-NLS-1$
 	if (this.pkgName != null)
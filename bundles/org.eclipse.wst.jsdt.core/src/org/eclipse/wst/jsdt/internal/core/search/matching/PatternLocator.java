@@ -200,6 +200,13 @@ protected TypeBinding getTypeNameBinding(int index) {
 public void initializePolymorphicSearch(MatchLocator locator) {
 	// default is to do nothing
 }
+/**
+ * Initializes this search pattern for polymorphic search with what the given locator of
+ * the same pattern computed in initializePolymorphicSearch(MatchLocator).
+ */
+public void initializePolymorphicSearch(PatternLocator initializedLocator) {
+	// default is to do nothing
+}
 /**
  * Check if the given ast node syntactically matches this pattern.
  * If it does, add it to the match set.
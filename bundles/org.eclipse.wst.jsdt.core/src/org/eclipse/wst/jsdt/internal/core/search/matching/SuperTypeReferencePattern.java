@@ -139,6 +139,13 @@ public class SuperTypeReferencePattern extends JavaSearchPattern {
 		return index.query(getIndexCategories(), key, matchRule); 
 	}
 
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.superTypeName);
+		appendKey(key, this.typeName);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
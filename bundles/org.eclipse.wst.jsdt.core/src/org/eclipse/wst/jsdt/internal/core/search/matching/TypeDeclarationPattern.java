@@ -252,8 +252,20 @@ public class TypeDeclarationPattern extends JavaSearchPattern {
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.InternalSearchPattern#queryIn(org.eclipse.wst.jsdt.internal.core.index.Index)
 	 */
 	EntryResult[] queryIn(Index index) throws IOException {
-		EntryResult[] results = null;
+		int[][] matchRules = new int[1][];
+		char[][] keys = getIndexKeys(matchRules);
 		
+		//run a single batched search for all the search keys
+		return InternalSearchPattern.queryIn(index, getIndexCategories(), keys, matchRules[0]);
+	}
+	
+	/**
+	 * <p>Computes the keys to search the index with, a search might need several keys.</p>
+	 * 
+	 * @param matchRulesHolder the match rules to use with each of the returned keys are set at index 0
+	 * @return the keys to search the index with
+	 */
+	char[][] getIndexKeys(int[][] matchRulesHolder) {
 		//determine the qualification and simple name patterns to use
 		char[] qualificationPattern;
 		char[] simpleNamePattern;
@@ -400,29 +412,21 @@ public class TypeDeclarationPattern extends JavaSearchPattern {
 				break;
 		}
 		
-		//run a search for each search key
-		for(int i = 0; i < keys.length; ++i) {
-			//run search
-			EntryResult[] additionalResults = index.query(getIndexCategories(), keys[i], matchRules[i]);
-			
-			//collect results
-			if(additionalResults != null && additionalResults.length > 0) {
-				if(results == null) {
-					results = additionalResults;
-				} else {
-					EntryResult[] existingResults = results;
-					
-					results = new EntryResult[existingResults.length + additionalResults.length];
-					
-					System.arraycopy(existingResults, 0, results, 0, existingResults.length);
-					System.arraycopy(additionalResults, 0, results, existingResults.length, additionalResults.length);
-				}
-			}
-		}
-		
-		return results;
+		matchRulesHolder[0] = matchRules;
+		return keys;
 	}
 	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.qualification);
+		appendKey(key, this.simpleName);
+		appendKey(key, this.superTypes);
+		appendKey(key, this.enclosingTypeNames);
+		appendKey(key, this.modifiers);
+		appendKey(key, this.fSearchPrefix);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
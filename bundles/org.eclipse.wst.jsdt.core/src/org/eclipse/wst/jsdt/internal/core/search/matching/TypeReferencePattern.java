@@ -117,6 +117,13 @@ import org.eclipse.wst.jsdt.internal.core.util.Util;
 		if (this.segments != null)
 			this.currentSegment = this.segments.length - 1;
 	}
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.qualification);
+		appendKey(key, this.simpleName);
+		appendKey(key, this.segmentsSize);
+		return key;
+	}
 	protected StringBuffer print(StringBuffer output) {
 		output.append("TypeReferencePattern: qualification<"); //$NON-NLS-1$
 		if (qualification != null)
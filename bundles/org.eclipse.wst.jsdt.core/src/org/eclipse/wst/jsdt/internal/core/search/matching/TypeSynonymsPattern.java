@@ -157,6 +157,13 @@ public class TypeSynonymsPattern extends JavaSearchPattern {
 		return key;
 	}
 	
+	public StringBuffer printKey(StringBuffer key) {
+		super.printKey(key);
+		appendKey(key, this.fSearchTypeName);
+		appendKey(key, this.fSynonyms);
+		return key;
+	}
+
 	/**
 	 * @see org.eclipse.wst.jsdt.internal.core.search.matching.JavaSearchPattern#print(java.lang.StringBuffer)
 	 */
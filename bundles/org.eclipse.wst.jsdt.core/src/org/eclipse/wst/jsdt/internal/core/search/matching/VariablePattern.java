@@ -62,6 +62,17 @@ protected int getVariableLength()
 	}
 }
 
+public StringBuffer printKey(StringBuffer key) {
+	super.printKey(key);
+	appendKey(key, this.findDeclarations);
+	appendKey(key, this.findReferences);
+	appendKey(key, this.readAccess);
+	appendKey(key, this.writeAccess);
+	appendKey(key, this.name);
+	appendKey(key, this.sourceVariable);
+	return key;
+}
+
 /*
  * Returns whether a method declaration or message send will need to be resolved to
  * find out if this method pattern matches it.
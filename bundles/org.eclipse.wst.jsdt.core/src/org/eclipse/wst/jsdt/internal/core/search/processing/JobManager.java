@@ -10,12 +10,17 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core.search.processing;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.wst.jsdt.internal.core.util.Histogram;
 import org.eclipse.wst.jsdt.internal.core.util.Messages;
 import org.eclipse.wst.jsdt.internal.core.util.Util;
 
@@ -27,10 +32,23 @@ public abstract class JobManager implements Runnable {
 	protected int jobEnd = -1;
 	protected boolean executing = false;
 
+	/* jobs started by the background threads, they stay in the queue until they are completed */
+	private IJob[] executingJobs = new IJob[1];
+	private int executingCount = 0;
+
+	/* jobs started and not yet finished, guarded by executingLock rather than by the job manager, see discardJobs() */
+	private IJob[] runningJobs = new IJob[1];
+	private int runningCount = 0;
+	private final Object executingLock = new Object();
+
 	/* background processing */
 	protected Thread processingThread;
 	protected Job progressJob;
 
+	/* number of threads executing the jobs, the processing thread being the first one */
+	private int workerCount = 1;
+	private Thread[] workerThreads = new Thread[1];
+
 	/* counter indicating whether job execution is enabled or not, disabled if <= 0
 	    it cannot go beyond 1 */
 	private int enableCount = 1;
@@ -41,6 +59,27 @@ public abstract class JobManager implements Runnable {
 
 	private int awaitingClients = 0;
 
+	/* durations of the executed jobs, job class name -> Histogram */
+	private final HashMap jobTimes = new HashMap();
+
+	private class ProgressJob extends Job {
+		ProgressJob(String name) {
+			super(name);
+		}
+		protected IStatus run(IProgressMonitor monitor) {
+			int awaitingJobsCount;
+			while (!monitor.isCanceled() && (awaitingJobsCount = awaitingJobsCount()) > 0) {
+				monitor.subTask(Messages.bind(Messages.manager_filesToIndex, Integer.toString(awaitingJobsCount)));
+				try {
+					Thread.sleep(500);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	/**
 	 * Invoked exactly once, in background, before starting processing any job
 	 */
@@ -79,19 +118,34 @@ public abstract class JobManager implements Runnable {
 
 		try {
 			IJob currentJob;
-			// cancel current job if it belongs to the given family
+			IJob[] startedJobs;
+			// cancel current jobs if they belong to the given family
 			synchronized(this){
 				currentJob = this.currentJob();
+				System.arraycopy(this.executingJobs, 0, startedJobs = new IJob[this.executingCount], 0, this.executingCount);
 				disable();
 			}
-			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
+			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily)))
 				currentJob.cancel();
-
-				// wait until current active job has finished
-				while (this.processingThread != null && this.executing){
+			IJob[] cancelledJobs = new IJob[startedJobs.length];
+			int cancelledCount = 0;
+			for (int i = 0, length = startedJobs.length; i < length; i++) {
+				IJob startedJob = startedJobs[i];
+				if (jobFamily == null || startedJob.belongsTo(jobFamily)) {
+					if (startedJob != currentJob)
+						startedJob.cancel();
+					cancelledJobs[cancelledCount++] = startedJob;
+				}
+			}
+			// wait until the cancelled jobs which were executing have finished, jobs of other families can keep running
+			// (no job is started meanwhile since the job manager is disabled)
+			// the caller may own the lock of the job manager, e.g. reset(), so wait on state that workers clear without it
+			for (int i = 0; i < cancelledCount; i++) {
+				IJob cancelledJob = cancelledJobs[i];
+				while (this.processingThread != null && isJobRunning(cancelledJob)){
 					try {
 						if (VERBOSE)
-							Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
+							Util.verbose("-> waiting end of current background job - " + cancelledJob); //$NON-NLS-1$
 						Thread.sleep(50);
 					} catch(InterruptedException e){
 						// ignore
@@ -130,25 +184,93 @@ public abstract class JobManager implements Runnable {
 			Util.verbose("ENABLING  background indexing"); //$NON-NLS-1$
 		this.notifyAll(); // wake up the background thread if it is waiting (context must be synchronized)
 	}
+	/**
+	 * Answers whether the given job has been started by one of the background threads.
+	 */
+	protected synchronized boolean isJobExecuting(IJob job) {
+		for (int i = 0; i < this.executingCount; i++)
+			if (this.executingJobs[i] == job) return true;
+		return false;
+	}
+	/*
+	 * Answers whether the given job is started and not yet finished. Does not need the lock of the job manager.
+	 */
+	private boolean isJobRunning(IJob job) {
+		synchronized (this.executingLock) {
+			for (int i = 0; i < this.runningCount; i++)
+				if (this.runningJobs[i] == job) return true;
+			return false;
+		}
+	}
 	public synchronized boolean isJobWaiting(IJob request) {
-		for (int i = this.jobEnd; i > this.jobStart; i--) // don't check job at jobStart, as it may have already started
-			if (request.equals(this.awaitingJobs[i])) return true;
+		for (int i = this.jobEnd; i >= this.jobStart; i--) { // don't check executing jobs, as they have already started
+			IJob job = this.awaitingJobs[i];
+			if (request.equals(job) && !isJobExecuting(job)) return true;
+		}
 		return false;
 	}
 	/**
-	 * Advance to the next available job, once the current one has been completed.
+	 * Advance to the next available job, once the given one has been completed.
 	 * Note: clients awaiting until the job count is zero are still waiting at this point.
 	 */
-	protected synchronized void moveToNextJob() {
-		//if (!enabled) return;
-
-		if (this.jobStart <= this.jobEnd) {
-			this.awaitingJobs[this.jobStart++] = null;
-			if (this.jobStart > this.jobEnd) {
-				this.jobStart = 0;
-				this.jobEnd = -1;
+	protected synchronized void moveToNextJob(IJob completedJob) {
+		for (int i = 0; i < this.executingCount; i++) {
+			if (this.executingJobs[i] == completedJob) {
+				System.arraycopy(this.executingJobs, i + 1, this.executingJobs, i, --this.executingCount - i);
+				this.executingJobs[this.executingCount] = null;
+				break;
 			}
 		}
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			if (this.awaitingJobs[i] == completedJob) {
+				if (i == this.jobStart) {
+					this.awaitingJobs[this.jobStart++] = null;
+				} else { // completed before the jobs requested earlier, compact the queue
+					System.arraycopy(this.awaitingJobs, i + 1, this.awaitingJobs, i, this.jobEnd - i);
+					this.awaitingJobs[this.jobEnd--] = null;
+				}
+				if (this.jobStart > this.jobEnd) {
+					this.jobStart = 0;
+					this.jobEnd = -1;
+				}
+				break;
+			}
+		}
+		if (this.workerCount > 1)
+			notifyAll(); // wake up the threads waiting for this job to complete
+	}
+	/**
+	 * Answers the first awaiting job that can be started, or null if none can be started yet.
+	 * A job is started once all the jobs requested before it have completed, unless it has
+	 * a different serialization key than each of them and another thread is available.
+	 */
+	protected synchronized IJob nextJob() {
+		if (this.enableCount <= 0 || this.executingCount >= this.workerCount) return null;
+
+		if (this.workerCount == 1)
+			return this.jobStart <= this.jobEnd ? this.awaitingJobs[this.jobStart] : null;
+
+		HashSet blockedKeys = null;
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			IJob job = this.awaitingJobs[i];
+			Object key = getSerializationKey(job);
+			if (key == null) // must run alone
+				return i == this.jobStart && this.executingCount == 0 ? job : null;
+			if (blockedKeys == null)
+				blockedKeys = new HashSet(5);
+			if (blockedKeys.add(key) && !isJobExecuting(job))
+				return job;
+		}
+		return null;
+	}
+	/**
+	 * Answers the key of the given job: jobs with the same key are executed one after the other,
+	 * in the order they were requested, while jobs with different keys can be executed concurrently
+	 * when more than one worker is used. A null key means the job cannot run concurrently with any
+	 * other job, which is the default.
+	 */
+	protected Object getSerializationKey(IJob job) {
+		return null;
 	}
 	/**
 	 * When idle, give chance to do something
@@ -315,6 +437,8 @@ public abstract class JobManager implements Runnable {
 
 		if (this.processingThread != null) {
 			discardJobs(null); // discard all jobs
+			if (this.activated)
+				startWorkers();
 		} else {
 			/* initiate background processing */
 			this.processingThread = new Thread(this, this.processName());
@@ -324,41 +448,108 @@ public abstract class JobManager implements Runnable {
 			this.processingThread.start();
 		}
 	}
+	/**
+	 * Sets the number of threads executing the jobs, jobs with different serialization keys
+	 * being executed concurrently when it is greater than 1. Takes effect on the next reset.
+	 *
+	 * @see #getSerializationKey(IJob)
+	 */
+	public synchronized void setWorkerCount(int count) {
+		this.workerCount = Math.max(1, count);
+		if (this.workerCount > this.executingJobs.length)
+			System.arraycopy(this.executingJobs, 0, this.executingJobs = new IJob[this.workerCount], 0, this.executingCount);
+	}
+	/*
+	 * Starts the threads helping the processing thread, if more than one worker is used.
+	 * Extra threads stop by themselves when the worker count is reduced.
+	 */
+	private synchronized void startWorkers() {
+		int length = this.workerThreads.length;
+		if (this.workerCount > length)
+			System.arraycopy(this.workerThreads, 0, this.workerThreads = new Thread[this.workerCount], 0, length);
+		for (int i = 1; i < this.workerCount; i++) {
+			if (this.workerThreads[i] == null) {
+				final int worker = i;
+				Thread thread = new Thread(this.processName() + " #" + (worker + 1)) { //$NON-NLS-1$
+					public void run() {
+						try {
+							while (JobManager.this.processingThread != null && worker < JobManager.this.workerCount) {
+								try {
+									processJobs(worker);
+								} catch (RuntimeException e) {
+									if (JobManager.this.processingThread != null) { // if not shutting down
+										Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
+										discardJobs(null); // keep the worker alive, some indexes will be inconsistent
+									}
+								}
+							}
+						} finally {
+							synchronized (JobManager.this) {
+								if (JobManager.this.workerThreads[worker] == this)
+									JobManager.this.workerThreads[worker] = null;
+							}
+						}
+					}
+				};
+				thread.setDaemon(true);
+				thread.setPriority(Thread.NORM_PRIORITY-1);
+				this.workerThreads[i] = thread;
+				thread.start();
+			}
+		}
+	}
 	/**
 	 * Infinite loop performing resource indexing
 	 */
 	public void run() {
 
-		long idlingStart = -1;
 		activateProcessing();
+		startWorkers();
 		try {
-			class ProgressJob extends Job {
-				ProgressJob(String name) {
-					super(name);
-				}
-				protected IStatus run(IProgressMonitor monitor) {
-					int awaitingJobsCount;
-					while (!monitor.isCanceled() && (awaitingJobsCount = awaitingJobsCount()) > 0) {
-						monitor.subTask(Messages.bind(Messages.manager_filesToIndex, Integer.toString(awaitingJobsCount)));
-						try {
-							Thread.sleep(500);
-						} catch (InterruptedException e) {
-							// ignore
-						}
-					}
-					return Status.OK_STATUS;
-				}
-			}
 			this.progressJob = null;
-			while (this.processingThread != null) {
-				try {
-					IJob job;
-					synchronized (this) {
-						// handle shutdown case when notifyAll came before the wait but after the while loop was entered
-						if (this.processingThread == null) continue;
+			processJobs(0);
+		} catch (RuntimeException e) {
+			if (this.processingThread != null) { // if not shutting down
+				// log exception
+				Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
 
-						// must check for new job inside this sync block to avoid timing hole
-						if ((job = currentJob()) == null) {
+				// keep job manager alive
+				this.discardJobs(null);
+				this.processingThread = null;
+				this.reset(); // this will fork a new thread with no waiting jobs, some indexes will be inconsistent
+			}
+			throw e;
+		} catch (Error e) {
+			if (this.processingThread != null && !(e instanceof ThreadDeath)) {
+				// log exception
+				Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
+
+				// keep job manager alive
+				this.discardJobs(null);
+				this.processingThread = null;
+				this.reset(); // this will fork a new thread with no waiting jobs, some indexes will be inconsistent
+			}
+			throw e;
+		}
+	}
+	/*
+	 * Executes the awaiting jobs until the job manager is shut down, or until the given worker is no longer needed.
+	 * The processing thread is worker 0, it is the only one to notify when the job manager is idle.
+	 */
+	private void processJobs(int worker) {
+		long idlingStart = -1;
+		while (this.processingThread != null && worker < this.workerCount) {
+			try {
+				IJob job;
+				boolean idle = false;
+				synchronized (this) {
+					// handle shutdown case when notifyAll came before the wait but after the while loop was entered
+					if (this.processingThread == null || worker >= this.workerCount) continue;
+
+					// must check for new job inside this sync block to avoid timing hole
+					if ((job = nextJob()) == null) {
+						if (worker == 0 && this.executingCount == 0) {
+							idle = true;
 							if (this.progressJob != null) {
 								this.progressJob.cancel();
 								this.progressJob = null;
@@ -367,64 +558,71 @@ public abstract class JobManager implements Runnable {
 								idlingStart = System.currentTimeMillis();
 							else
 								notifyIdle(System.currentTimeMillis() - idlingStart);
-							this.wait(); // wait until a new job is posted (or reenabled:38901)
-						} else {
-							idlingStart = -1;
 						}
+						this.wait(); // wait until a new job is posted (or reenabled:38901), or another job has completed
+					} else {
+						idlingStart = -1;
+						this.executingJobs[this.executingCount++] = job;
+						setExecuting(job, true); // together with executingJobs, so that discardJobs() waits for every job of its snapshot
 					}
-					if (job == null) {
+				}
+				if (job == null) {
+					if (idle) {
 						notifyIdle(System.currentTimeMillis() - idlingStart);
 						// just woke up, delay before processing any new jobs, allow some time for the active thread to finish
 						Thread.sleep(500);
-						continue;
 					}
+					continue;
+				}
+				long start = System.currentTimeMillis();
+				try {
 					if (VERBOSE) {
 						Util.verbose(awaitingJobsCount() + " awaiting jobs"); //$NON-NLS-1$
 						Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
 					}
-					try {
-						this.executing = true;
-						if (this.progressJob == null) {
-							this.progressJob = new ProgressJob(Messages.manager_indexingInProgress);
-							this.progressJob.setPriority(Job.LONG);
-							this.progressJob.setSystem(true);
-							this.progressJob.schedule();
-						}
-						/*boolean status = */job.execute(null);
-						//if (status == FAILED) request(job);
-					} finally {
-						this.executing = false;
-						if (VERBOSE)
-							Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
-						moveToNextJob();
-						if (this.awaitingClients == 0)
-							Thread.sleep(50);
-					}
-				} catch (InterruptedException e) { // background indexing was interrupted
+					showProgress();
+					/*boolean status = */job.execute(null);
+					//if (status == FAILED) request(job);
+				} finally {
+					setExecuting(job, false);
+					getJobTimes(job).record(System.currentTimeMillis() - start);
+					if (VERBOSE)
+						Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
+					moveToNextJob(job);
+					if (this.awaitingClients == 0)
+						Thread.sleep(50);
 				}
+			} catch (InterruptedException e) { // background indexing was interrupted
 			}
-		} catch (RuntimeException e) {
-			if (this.processingThread != null) { // if not shutting down
-				// log exception
-				Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
-
-				// keep job manager alive
-				this.discardJobs(null);
-				this.processingThread = null;
-				this.reset(); // this will fork a new thread with no waiting jobs, some indexes will be inconsistent
+		}
+	}
+	private void setExecuting(IJob job, boolean started) {
+		// not synchronized on the job manager, see discardJobs()
+		synchronized (this.executingLock) {
+			if (started) {
+				if (this.runningCount == this.runningJobs.length)
+					System.arraycopy(this.runningJobs, 0, this.runningJobs = new IJob[this.runningCount * 2], 0, this.runningCount);
+				this.runningJobs[this.runningCount++] = job;
+			} else {
+				for (int i = 0; i < this.runningCount; i++) {
+					if (this.runningJobs[i] == job) {
+						System.arraycopy(this.runningJobs, i + 1, this.runningJobs, i, --this.runningCount - i);
+						this.runningJobs[this.runningCount] = null;
+						break;
+					}
+				}
 			}
-			throw e;
-		} catch (Error e) {
-			if (this.processingThread != null && !(e instanceof ThreadDeath)) {
-				// log exception
-				Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
-
-				// keep job manager alive
-				this.discardJobs(null);
-				this.processingThread = null;
-				this.reset(); // this will fork a new thread with no waiting jobs, some indexes will be inconsistent
+			this.executing = this.runningCount > 0;
+		}
+	}
+	private void showProgress() {
+		synchronized (this.executingLock) {
+			if (this.progressJob == null) {
+				this.progressJob = new ProgressJob(Messages.manager_indexingInProgress);
+				this.progressJob.setPriority(Job.LONG);
+				this.progressJob.setSystem(true);
+				this.progressJob.schedule();
 			}
-			throw e;
 		}
 	}
 	/**
@@ -447,6 +645,13 @@ public abstract class JobManager implements Runnable {
 				// in case processing thread is handling a job
 				thread.join();
 			}
+			Thread[] workers;
+			synchronized (this) {
+				workers = (Thread[]) this.workerThreads.clone();
+			}
+			for (int i = 1, length = workers.length; i < length; i++)
+				if (workers[i] != null)
+					workers[i].join();
 			Job job = this.progressJob;
 			if (job != null) {
 				job.cancel();
@@ -456,6 +661,30 @@ public abstract class JobManager implements Runnable {
 			// ignore
 		}
 	}
+	private Histogram getJobTimes(IJob job) {
+		String name = job.getClass().getName();
+		name = name.substring(name.lastIndexOf('.') + 1);
+		synchronized (this.jobTimes) {
+			Histogram times = (Histogram) this.jobTimes.get(name);
+			if (times == null)
+				this.jobTimes.put(name, times = new Histogram());
+			return times;
+		}
+	}
+	/**
+	 * Answers the number of awaiting jobs and the durations of the executed jobs per kind of job.
+	 */
+	public String toStringStatistics() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("Awaiting jobs: ").append(awaitingJobsCount()).append('\n'); //$NON-NLS-1$
+		synchronized (this.jobTimes) {
+			for (Iterator iterator = this.jobTimes.keySet().iterator(); iterator.hasNext();) {
+				String name = (String) iterator.next();
+				buffer.append(name).append(": ").append(this.jobTimes.get(name)).append('\n'); //$NON-NLS-1$
+			}
+		}
+		return buffer.toString();
+	}
 	public String toString() {
 		StringBuffer buffer = new StringBuffer(10);
 		buffer.append("Enable count:").append(this.enableCount).append('\n'); //$NON-NLS-1$
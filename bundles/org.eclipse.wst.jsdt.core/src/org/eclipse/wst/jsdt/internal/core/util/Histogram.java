@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.util;
+
+/**
+ * Distribution of durations in milliseconds, recorded in buckets whose bounds are powers of 2:
+ * percentiles are answered as the upper bound of their bucket. Thread safe.
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 32; // bucket i counts the durations d with 2^(i-1) <= d < 2^i, d = 0 is in bucket 0
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+
+	public synchronized void record(long millis) {
+		if (millis < 0) millis = 0;
+		int bucket = 0;
+		while (bucket < BUCKETS - 1 && millis >= (1L << bucket))
+			bucket++;
+		this.counts[bucket]++;
+		this.count++;
+		this.total += millis;
+		if (millis > this.max)
+			this.max = millis;
+	}
+
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	public synchronized long getTotal() {
+		return this.total;
+	}
+
+	public synchronized long getMax() {
+		return this.max;
+	}
+
+	/**
+	 * Answers an upper bound of the given percentile of the recorded durations, at most twice the actual value,
+	 * or 0 if none was recorded.
+	 */
+	public synchronized long getPercentile(int percent) {
+		if (this.count == 0) return 0;
+		long rank = (this.count * percent + 99) / 100; // number of durations which must be below the answer
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.counts[i];
+			if (seen >= rank)
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, this.max);
+		}
+		return this.max;
+	}
+
+	public synchronized String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(this.count).append(" times, "); //$NON-NLS-1$
+		buffer.append(this.count == 0 ? 0 : this.total / this.count).append(" ms avg, "); //$NON-NLS-1$
+		buffer.append(getPercentile(50)).append(" ms p50, "); //$NON-NLS-1$
+		buffer.append(getPercentile(90)).append(" ms p90, "); //$NON-NLS-1$
+		buffer.append(getPercentile(99)).append(" ms p99, "); //$NON-NLS-1$
+		buffer.append(this.max).append(" ms max"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+}
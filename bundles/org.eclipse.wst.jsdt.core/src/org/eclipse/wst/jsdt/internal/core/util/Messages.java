@@ -217,8 +217,6 @@ public final class Messages extends NLS {
 	public static String manager_indexingInProgress;
 	public static String converter_ConfiguringForJavaScript;
 	public static String converter_ConfiguringForBrowser;
-	
-	public static String PostponedRunnablesManager_job_title;
 
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
@@ -12,12 +12,15 @@
 package org.eclipse.wst.jsdt.internal.ui.text.spelling.engine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
@@ -31,7 +34,9 @@ import java.util.Set;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.URIUtil;
 import org.eclipse.wst.jsdt.internal.corext.util.Messages;
 import org.eclipse.wst.jsdt.internal.ui.JavaScriptPlugin;
 import org.eclipse.wst.jsdt.internal.ui.JavaUIMessages;
@@ -57,12 +62,24 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The hash capacity */
 	protected static final int HASH_CAPACITY= 22 * 1024;
 
+	/** The folder of the state location holding the compact word lists */
+	private static final String COMPACT_FOLDER= "spelling"; //$NON-NLS-1$
+
+	/** Traces the time spent loading the dictionaries and computing proposals */
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.wst.jsdt.ui/debug/spelling"));  //$NON-NLS-1$//$NON-NLS-2$
+
 	/** The phonetic distance algorithm */
 	private IPhoneticDistanceAlgorithm fDistanceAlgorithm= new DefaultPhoneticDistanceAlgorithm();
 
 	/** The mapping from phonetic hashes to word lists */
 	private final Map fHashBuckets= new HashMap(HASH_CAPACITY);
 
+	/**
+	 * The words read from the compact word list of the dictionary, <code>null</code> if they are in
+	 * the hash buckets. The words added afterwards are in the hash buckets.
+	 */
+	private CompactWordList fWordList;
+
 	/** The phonetic hash provider */
 	private IPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
 
@@ -88,7 +105,27 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @return Array of candidates for the phonetic hash
 	 */
 	protected final Object getCandidates(final String hash) {
-		return fHashBuckets.get(hash);
+		Object candidates= fHashBuckets.get(hash);
+		CompactWordList wordList= fWordList;
+		if (wordList == null)
+			return candidates;
+
+		Object words= wordList.getWords(hash);
+		if (candidates == null)
+			return words;
+		if (words == null)
+			return candidates;
+
+		ArrayList list= new ArrayList(BUCKET_CAPACITY);
+		if (words instanceof ArrayList)
+			list.addAll((ArrayList)words);
+		else
+			list.add(words);
+		if (candidates instanceof ArrayList)
+			list.addAll((ArrayList)candidates);
+		else
+			list.add(candidates);
+		return list;
 	}
 
 	/**
@@ -219,7 +256,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * 
 	 */
 	protected boolean isEmpty() {
-		return fHashBuckets.size() == 0;
+		return fHashBuckets.size() == 0 && (fWordList == null || fWordList.size() == 0);
 	}
 
 	/**
@@ -245,6 +282,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 */
 	public Set getProposals(final String word, final boolean sentence) {
 
+		long start= DEBUG ? System.currentTimeMillis() : 0;
 		try {
 
 			if (!fLoaded) {
@@ -350,6 +388,9 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
 		candidates.addAll(matches);
 
+		if (DEBUG)
+			System.out.println("Spelling proposals for \"" + word + "\": " + candidates.size() + " in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
 		return candidates;
 	}
 
@@ -459,7 +500,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @see org.eclipse.wst.jsdt.ui.text.spelling.engine.ISpellDictionary#isLoaded()
 	 */
 	public final synchronized boolean isLoaded() {
-		return fLoaded || fHashBuckets.size() > 0;
+		return fLoaded || fHashBuckets.size() > 0 || fWordList != null;
 	}
 
 	/**
@@ -475,6 +516,20 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			 return fLoaded;
 
 		if (url != null) {
+			long start= DEBUG ? System.currentTimeMillis() : 0;
+			File compactFile= getCompactFile(url);
+			String key= compactFile == null ? null : getCompactKey(url);
+			if (key != null) {
+				CompactWordList wordList= CompactWordList.open(compactFile, key);
+				if (wordList != null) {
+					fWordList= wordList;
+					fMustLoad= false;
+					if (DEBUG)
+						System.out.println("Mapped " + wordList.size() + " words of " + url + " in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					return true;
+				}
+			}
+
 			InputStream stream= null;
 			int line= 0;
 			try {
@@ -510,6 +565,10 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 						if (doRead)
 							hashWord(word);
 					}
+					if (key != null)
+						compactHashBuckets(compactFile, key);
+					if (DEBUG)
+						System.out.println("Read the word list " + url + " in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 					return true;
 				}
 			} catch (FileNotFoundException ex) {
@@ -542,6 +601,92 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		return false;
 	}
 
+	/**
+	 * Returns the file caching the compact word list of the given word list.
+	 * <p>
+	 * Subclasses may override to return <code>null</code> if their words must always be
+	 * read from the word list.
+	 * </p>
+	 *
+	 * @param url
+	 *                   The URL of the word list
+	 * @return The compact word list file, or <code>null</code> if none is used
+	 */
+	protected File getCompactFile(final URL url) {
+		JavaScriptPlugin plugin= JavaScriptPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		String name= Integer.toHexString(url.toString().hashCode()) + ".dictionary"; //$NON-NLS-1$
+		return plugin.getStateLocation().append(COMPACT_FOLDER).append(name).toFile();
+	}
+
+	/**
+	 * Returns the key identifying the current contents of the given word list, so that a compact word list
+	 * written from other contents is not used.
+	 *
+	 * @param url
+	 *                   The URL of the word list
+	 * @return The key, or <code>null</code> if the modification time of the word list is not known
+	 */
+	private String getCompactKey(final URL url) {
+		long length;
+		long lastModified;
+		if ("file".equals(url.getProtocol())) { //$NON-NLS-1$
+			File file;
+			try {
+				file= new File(URIUtil.toURI(url)); // decodes the escaped characters of the path
+			} catch (URISyntaxException exception) {
+				return null;
+			} catch (IllegalArgumentException exception) {
+				return null;
+			}
+			length= file.length();
+			lastModified= file.lastModified();
+		} else {
+			try {
+				URLConnection connection= url.openConnection();
+				length= connection.getContentLength();
+				lastModified= connection.getLastModified();
+				connection.getInputStream().close();
+			} catch (IOException exception) {
+				return null;
+			}
+		}
+		if (lastModified == 0)
+			return null;
+		return url + "\n" + length + "\n" + lastModified + "\n" + getEncoding() + "\n" + fHashProvider.getClass().getName(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	/**
+	 * Writes the words of the hash buckets to the given compact word list file, and
+	 * replaces the hash buckets by this file which uses less memory.
+	 *
+	 * @param file
+	 *                   The compact word list file
+	 * @param key
+	 *                   The key of the word list which was read
+	 */
+	private void compactHashBuckets(final File file, final String key) {
+		File tempFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			CompactWordList.write(fHashBuckets, tempFile, key);
+		} catch (IOException exception) {
+			JavaScriptPlugin.log(exception);
+			tempFile.delete();
+			return;
+		}
+		file.delete();
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete(); // the previous file may still be mapped, keep the words in memory
+			return;
+		}
+		CompactWordList wordList= CompactWordList.open(file, key);
+		if (wordList != null) {
+			fWordList= wordList;
+			fHashBuckets.clear();
+		}
+	}
+
 	/**
 	 * Compacts the dictionary.
 	 * 
@@ -583,6 +728,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		fLoaded= false;
 		fMustLoad= true;
 		fHashBuckets.clear();
+		fWordList= null;
 	}
 
 	/*
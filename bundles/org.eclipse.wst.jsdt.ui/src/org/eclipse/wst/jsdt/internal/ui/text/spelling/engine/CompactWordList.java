@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.wst.jsdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable word list of a dictionary, memory mapped from a file written by {@link #write(Map, File, String)}.
+ * <p>
+ * The file holds the phonetic hashes sorted by their UTF-8 bytes, each one followed by the UTF-8 bytes of its
+ * words, so that the words of a hash are found by a binary search without reading the whole file:
+ * <pre>
+ * int magic, int version, int key length, key bytes
+ * int hash count, int word count
+ * int[hash count + 1] offsets of the hashes in the hash bytes
+ * int[hash count + 1] index of the first word of each hash
+ * int[word count + 1] offsets of the words in the word bytes
+ * hash bytes, word bytes
+ * </pre>
+ * The key identifies the word list the file was written from, a file with another key is ignored.
+ * </p>
+ *
+ */
+final class CompactWordList {
+
+	/** The magic number of the files */
+	private static final int MAGIC= 0x4A534443;
+
+	/** The version of the file format */
+	private static final int VERSION= 1;
+
+	/** The encoding of the hashes and words */
+	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+
+	/** Orders byte arrays as unsigned bytes, which is the order of the UTF-8 encoded strings */
+	private static final Comparator BYTES_ORDER= new Comparator() {
+		public int compare(Object o1, Object o2) {
+			byte[] bytes1= (byte[]) o1;
+			byte[] bytes2= (byte[]) o2;
+			int length= Math.min(bytes1.length, bytes2.length);
+			for (int index= 0; index < length; index++) {
+				int difference= (bytes1[index] & 0xFF) - (bytes2[index] & 0xFF);
+				if (difference != 0)
+					return difference;
+			}
+			return bytes1.length - bytes2.length;
+		}
+	};
+
+	/** The mapped file, only read with absolute positions so that it can be shared by threads */
+	private final ByteBuffer fBuffer;
+
+	private final int fHashCount;
+	private final int fWordCount;
+	private final int fHashOffsets;
+	private final int fFirstWords;
+	private final int fWordOffsets;
+	private final int fHashBytes;
+	private final int fWordBytes;
+
+	private CompactWordList(ByteBuffer buffer, int position) {
+		fBuffer= buffer;
+		fHashCount= buffer.getInt(position);
+		fWordCount= buffer.getInt(position + 4);
+		fHashOffsets= position + 8;
+		fFirstWords= fHashOffsets + (fHashCount + 1) * 4;
+		fWordOffsets= fFirstWords + (fHashCount + 1) * 4;
+		fHashBytes= fWordOffsets + (fWordCount + 1) * 4;
+		fWordBytes= fHashBytes + buffer.getInt(fHashOffsets + fHashCount * 4);
+	}
+
+	/**
+	 * Maps the given file.
+	 *
+	 * @param file
+	 *                   The file written by {@link #write(Map, File, String)}
+	 * @param key
+	 *                   The key of the word list the file must have been written from
+	 * @return The word list, or <code>null</code> if the file does not exist, has another key or cannot be read
+	 */
+	static CompactWordList open(File file, String key) {
+		if (!file.isFile())
+			return null;
+
+		FileInputStream stream= null;
+		try {
+			stream= new FileInputStream(file);
+			FileChannel channel= stream.getChannel();
+			ByteBuffer buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+				return null;
+
+			byte[] expectedKey= key.getBytes(UTF_8);
+			if (buffer.getInt(8) != expectedKey.length || buffer.limit() < 20 + expectedKey.length)
+				return null;
+			for (int index= 0; index < expectedKey.length; index++) {
+				if (buffer.get(12 + index) != expectedKey[index])
+					return null;
+			}
+
+			CompactWordList words= new CompactWordList(buffer, 12 + expectedKey.length);
+			if (words.fHashCount < 0 || words.fWordCount < 0 || words.fWordBytes > buffer.limit()
+					|| words.fWordBytes + buffer.getInt(words.fWordOffsets + words.fWordCount * 4) != buffer.limit())
+				return null; // truncated
+			return words;
+		} catch (IOException exception) {
+			return null;
+		} catch (IndexOutOfBoundsException exception) {
+			return null; // corrupted
+		} finally {
+			try {
+				if (stream != null)
+					stream.close(); // the mapping stays valid
+			} catch (IOException exception) {
+			}
+		}
+	}
+
+	/**
+	 * Writes the given mapping from phonetic hashes to words to the given file.
+	 *
+	 * @param buckets
+	 *                   The mapping from phonetic hashes to a word or to an <code>ArrayList</code> of words
+	 * @param file
+	 *                   The file to write
+	 * @param key
+	 *                   The key of the word list the mapping was read from
+	 * @throws IOException
+	 *                    if the file could not be written
+	 */
+	static void write(Map buckets, File file, String key) throws IOException {
+		Map sorted= new TreeMap(BYTES_ORDER);
+		for (Iterator iterator= buckets.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry entry= (Map.Entry) iterator.next();
+			sorted.put(((String) entry.getKey()).getBytes(UTF_8), entry.getValue());
+		}
+
+		int hashCount= sorted.size();
+		byte[][] hashes= new byte[hashCount][];
+		Object[] words= new Object[hashCount];
+		int wordCount= 0;
+		int index= 0;
+		for (Iterator iterator= sorted.entrySet().iterator(); iterator.hasNext(); index++) {
+			Map.Entry entry= (Map.Entry) iterator.next();
+			hashes[index]= (byte[]) entry.getKey();
+			words[index]= entry.getValue();
+			wordCount+= words[index] instanceof ArrayList ? ((ArrayList) words[index]).size() : 1;
+		}
+
+		byte[][] wordBytes= new byte[wordCount][];
+		int[] firstWords= new int[hashCount + 1];
+		int word= 0;
+		for (index= 0; index < hashCount; index++) {
+			firstWords[index]= word;
+			if (words[index] instanceof ArrayList) {
+				ArrayList list= (ArrayList) words[index];
+				for (int offset= 0; offset < list.size(); offset++)
+					wordBytes[word++]= ((String) list.get(offset)).getBytes(UTF_8);
+			} else {
+				wordBytes[word++]= ((String) words[index]).getBytes(UTF_8);
+			}
+		}
+		firstWords[hashCount]= wordCount;
+
+		file.getParentFile().mkdirs();
+		DataOutputStream stream= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		try {
+			byte[] keyBytes= key.getBytes(UTF_8);
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeInt(keyBytes.length);
+			stream.write(keyBytes);
+			stream.writeInt(hashCount);
+			stream.writeInt(wordCount);
+			writeOffsets(stream, hashes);
+			for (index= 0; index <= hashCount; index++)
+				stream.writeInt(firstWords[index]);
+			writeOffsets(stream, wordBytes);
+			for (index= 0; index < hashCount; index++)
+				stream.write(hashes[index]);
+			for (index= 0; index < wordCount; index++)
+				stream.write(wordBytes[index]);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private static void writeOffsets(DataOutputStream stream, byte[][] arrays) throws IOException {
+		int offset= 0;
+		for (int index= 0; index < arrays.length; index++) {
+			stream.writeInt(offset);
+			offset+= arrays[index].length;
+		}
+		stream.writeInt(offset);
+	}
+
+	/**
+	 * Returns the words with the given phonetic hash.
+	 *
+	 * @param hash
+	 *                   The phonetic hash
+	 * @return <code>null</code> if there is no word with this hash, the word if there is only one, otherwise an
+	 *               <code>ArrayList</code> of the words
+	 */
+	Object getWords(final String hash) {
+		byte[] key;
+		try {
+			key= hash.getBytes(UTF_8);
+		} catch (UnsupportedEncodingException exception) {
+			return null; // UTF-8 is always supported
+		}
+
+		int low= 0;
+		int high= fHashCount - 1;
+		while (low <= high) {
+			int middle= (low + high) >>> 1;
+			int comparison= compareHash(middle, key);
+			if (comparison < 0)
+				low= middle + 1;
+			else if (comparison > 0)
+				high= middle - 1;
+			else {
+				int first= fBuffer.getInt(fFirstWords + middle * 4);
+				int end= fBuffer.getInt(fFirstWords + (middle + 1) * 4);
+				if (end - first == 1)
+					return getWord(first);
+				ArrayList words= new ArrayList(end - first);
+				for (int word= first; word < end; word++)
+					words.add(getWord(word));
+				return words;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of words of this list.
+	 *
+	 * @return The number of words
+	 */
+	int size() {
+		return fWordCount;
+	}
+
+	private int compareHash(int hash, byte[] key) {
+		int start= fHashBytes + fBuffer.getInt(fHashOffsets + hash * 4);
+		int length= fHashBytes + fBuffer.getInt(fHashOffsets + (hash + 1) * 4) - start;
+		int common= Math.min(length, key.length);
+		for (int index= 0; index < common; index++) {
+			int difference= (fBuffer.get(start + index) & 0xFF) - (key[index] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+		return length - key.length;
+	}
+
+	private String getWord(int word) {
+		int start= fWordBytes + fBuffer.getInt(fWordOffsets + word * 4);
+		int length= fWordBytes + fBuffer.getInt(fWordOffsets + (word + 1) * 4) - start;
+		byte[] bytes= new byte[length];
+		for (int index= 0; index < length; index++)
+			bytes[index]= fBuffer.get(start + index);
+		try {
+			return new String(bytes, UTF_8);
+		} catch (UnsupportedEncodingException exception) {
+			return null; // UTF-8 is always supported
+		}
+	}
+}
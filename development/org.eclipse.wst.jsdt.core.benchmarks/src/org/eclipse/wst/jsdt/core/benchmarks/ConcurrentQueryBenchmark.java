@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+
+/**
+ * Measures the throughput of queries run concurrently against the same index, as the searches of
+ * several projects do against the index of a library they share. Run it as a Java application with
+ * the org.eclipse.wst.jsdt.core bundle and its required bundles on the class path, optionally passing
+ * the directory where the index file is written (the temporary directory by default).
+ * <p>
+ * Prints the queries answered per second by 1 to 16 threads, and the speedup over a single thread.
+ * </p>
+ */
+public class ConcurrentQueryBenchmark {
+
+	static final int DOCUMENTS = 2000;
+	static final int WORDS = 20000; // per category
+	static final long WARM_UP = 2000; // milliseconds
+	static final long DURATION = 3000; // milliseconds per thread count
+	static final char[][] CATEGORIES = {
+		"typeDecl".toCharArray(), "methodDecl".toCharArray(), "fieldDecl".toCharArray(), "ref".toCharArray() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+
+	final Index index;
+	final char[][] words;
+	volatile boolean stop;
+
+	ConcurrentQueryBenchmark(Index index, char[][] words) {
+		this.index = index;
+		this.words = words;
+	}
+
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir")); //$NON-NLS-1$
+		File file = new File(directory, "ConcurrentQueryBenchmark.index"); //$NON-NLS-1$
+		Random random = new Random(0);
+		char[][] words = SyntheticIndex.words(WORDS, random);
+		Index index = SyntheticIndex.create(file, CATEGORIES, words, DOCUMENTS, random);
+		try {
+			ConcurrentQueryBenchmark benchmark = new ConcurrentQueryBenchmark(index, words);
+			benchmark.measure(Runtime.getRuntime().availableProcessors(), WARM_UP);
+			System.out.println(Runtime.getRuntime().availableProcessors() + " processors"); //$NON-NLS-1$
+			System.out.println("threads\tqueries/s\tspeedup"); //$NON-NLS-1$
+			double single = 0;
+			for (int threads = 1; threads <= 16; threads *= 2) {
+				double rate = benchmark.measure(threads, DURATION);
+				if (threads == 1)
+					single = rate;
+				System.out.println(threads + "\t" + Math.round(rate) + "\t\t" + Math.round(rate * 100 / single) / 100d); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/*
+	 * Answers the number of queries per second answered by the given number of threads.
+	 */
+	double measure(int threadCount, long duration) throws InterruptedException {
+		this.stop = false;
+		final long[] counts = new long[threadCount];
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int thread = i;
+			threads[i] = new Thread() {
+				public void run() {
+					Random random = new Random(thread);
+					try {
+						while (!ConcurrentQueryBenchmark.this.stop) {
+							queryOnce(random);
+							counts[thread]++;
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+		}
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < threadCount; i++)
+			threads[i].start();
+		Thread.sleep(duration);
+		this.stop = true;
+		long total = 0;
+		for (int i = 0; i < threadCount; i++) {
+			threads[i].join();
+			total += counts[i];
+		}
+		long time = System.currentTimeMillis() - start;
+		if (failure[0] != null)
+			throw new RuntimeException(failure[0]);
+		return total * 1000d / time;
+	}
+
+	/*
+	 * Looks up a word and the documents referencing it in one or two categories, as a search for a
+	 * declaration or a reference does, or runs a prefix query, as code assist does, one time in eight.
+	 */
+	void queryOnce(Random random) throws IOException {
+		char[] word = this.words[random.nextInt(this.words.length)];
+		if (random.nextInt(8) == 0) {
+			char[] prefix = new char[Math.min(6, word.length)];
+			System.arraycopy(word, 0, prefix, 0, prefix.length);
+			SyntheticIndex.query(this.index, new char[][] {CATEGORIES[0]}, prefix, SearchPattern.R_PREFIX_MATCH, false);
+			return;
+		}
+		char[][] categories = random.nextBoolean()
+			? new char[][] {CATEGORIES[random.nextInt(3)]}
+			: new char[][] {CATEGORIES[3], CATEGORIES[random.nextInt(3)]};
+		SyntheticIndex.query(this.index, categories, word, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE, true);
+	}
+}
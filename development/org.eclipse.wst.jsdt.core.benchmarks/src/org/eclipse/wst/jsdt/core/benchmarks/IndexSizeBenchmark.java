@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+
+/**
+ * Measures the size of index files and how fast the documents referencing their words are read, for
+ * a small and a large library. Run it as a Java application with the org.eclipse.wst.jsdt.core bundle
+ * and its required bundles on the class path, optionally passing the directory where the index files
+ * are written (the temporary directory by default).
+ * <p>
+ * Prints, for each library, the size of its index file, the time taken to write it, and the number of
+ * words whose documents are read per second, reopening the index file first so that the documents are
+ * decoded from the file rather than kept from writing it.
+ * </p>
+ */
+public class IndexSizeBenchmark {
+
+	static final int[] DOCUMENTS = {1000, 10000};
+	static final int[] WORDS = {10000, 20000}; // per category
+	static final long DURATION = 3000; // milliseconds per library
+	static final char[][] CATEGORIES = {"methodDecl".toCharArray(), "ref".toCharArray()}; //$NON-NLS-1$ //$NON-NLS-2$
+
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir")); //$NON-NLS-1$
+		System.out.println("documents\twords\tfile size (KB)\twrite (ms)\tdocument names\tlookups/s"); //$NON-NLS-1$
+		for (int i = 0; i < DOCUMENTS.length; i++) {
+			File file = new File(directory, "IndexSizeBenchmark" + i + ".index"); //$NON-NLS-1$ //$NON-NLS-2$
+			Random random = new Random(i);
+			char[][] words = SyntheticIndex.words(WORDS[i], random);
+			long start = System.currentTimeMillis();
+			SyntheticIndex.create(file, CATEGORIES, words, DOCUMENTS[i], random).discard();
+			long writeTime = System.currentTimeMillis() - start;
+			try {
+				Index index = new Index(file.getPath(), "/libraries", true); //$NON-NLS-1$
+				int lookups = 0;
+				long names = 0;
+				start = System.currentTimeMillis();
+				long time;
+				do {
+					char[] word = words[random.nextInt(words.length)];
+					names += SyntheticIndex.query(index, CATEGORIES, word, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE, true);
+					lookups++;
+				} while ((time = System.currentTimeMillis() - start) < DURATION);
+				index.discard();
+				System.out.println(DOCUMENTS[i] + "\t\t" + WORDS[i] + "\t" + (file.length() + 1023) / 1024 + "\t\t" + writeTime //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ "\t\t" + names / lookups + "/lookup\t" + Math.round(lookups * 1000d / time)); //$NON-NLS-1$ //$NON-NLS-2$
+			} finally {
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.jsdt.internal.core.search.processing.IJob;
+import org.eclipse.wst.jsdt.internal.core.search.processing.JobManager;
+
+/**
+ * Checks that the JobManager discards its jobs without deadlocking. Run it as a Java application with
+ * the org.eclipse.wst.jsdt.core bundle and its required bundles on the class path, optionally passing
+ * the number of workers (1 and 3 by default).
+ * <p>
+ * For each number of workers, resets the job manager while a job is executing, as the delta processor
+ * does, and waits for the reset to return once the job is finished. With more than one worker, also
+ * makes a job fail while another one is executing, and checks that jobs requested after the crash
+ * recovery are executed. Exits with 1 if a check failed.
+ * </p>
+ */
+public class JobManagerResetCheck {
+
+	static final long JOB_DURATION = 2000; // milliseconds
+	static final long TIMEOUT = 5000; // milliseconds after which a reset or a job is stuck
+
+	static class Manager extends JobManager {
+		public String processName() {
+			return "JobManagerResetCheck"; //$NON-NLS-1$
+		}
+		protected Object getSerializationKey(IJob job) {
+			return job; // all the jobs can run concurrently
+		}
+	}
+
+	static class SleepingJob implements IJob {
+		final long duration;
+		final boolean fail;
+		volatile boolean done;
+
+		SleepingJob(long duration, boolean fail) {
+			this.duration = duration;
+			this.fail = fail;
+		}
+		public boolean belongsTo(String jobFamily) {
+			return true;
+		}
+		public void cancel() {
+			// run to the end, as a job which does not check for cancellation
+		}
+		public void ensureReadyToRun() {
+			// always ready
+		}
+		public boolean execute(IProgressMonitor progress) {
+			try {
+				Thread.sleep(this.duration);
+			} catch (InterruptedException e) {
+				// finish
+			}
+			this.done = true;
+			if (this.fail)
+				throw new RuntimeException("Failure of a job"); //$NON-NLS-1$
+			return COMPLETE;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int[] workerCounts = args.length > 0 ? new int[] {Integer.parseInt(args[0])} : new int[] {1, 3};
+		boolean failed = false;
+		for (int i = 0; i < workerCounts.length; i++)
+			failed |= !check(workerCounts[i]);
+		System.exit(failed ? 1 : 0);
+	}
+
+	static boolean check(int workers) throws InterruptedException {
+		final Manager manager = new Manager();
+		manager.setWorkerCount(workers);
+		manager.reset(); // starts the processing thread
+		try {
+			SleepingJob job = new SleepingJob(JOB_DURATION, false);
+			manager.request(job);
+			Thread.sleep(1000); // a job starts about 500 ms after it is requested
+			Thread reset = new Thread("Reset") { //$NON-NLS-1$
+				public void run() {
+					manager.reset();
+				}
+			};
+			reset.setDaemon(true);
+			reset.start();
+			reset.join(TIMEOUT);
+			boolean ok = !reset.isAlive() && job.done;
+			System.out.println(workers + " workers, reset while a job is executing: " + (ok ? "OK" : "FAILED, the reset did not return")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (!ok)
+				return false;
+			if (workers == 1)
+				return true;
+
+			SleepingJob longJob = new SleepingJob(JOB_DURATION, false);
+			manager.request(longJob);
+			manager.request(new SleepingJob(200, true));
+			Thread.sleep(JOB_DURATION + 500);
+			SleepingJob laterJob = new SleepingJob(10, false);
+			manager.request(laterJob);
+			long start = System.currentTimeMillis();
+			while (!laterJob.done && System.currentTimeMillis() - start < TIMEOUT)
+				Thread.sleep(50);
+			ok = longJob.done && laterJob.done;
+			System.out.println(workers + " workers, failure of a job while another one is executing: " + (ok ? "OK" : "FAILED, the jobs are no longer executed")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return ok;
+		} finally {
+			shutdown(manager);
+		}
+	}
+
+	/*
+	 * Shuts the job manager down unless it is stuck, in which case its daemon threads are left behind.
+	 */
+	static void shutdown(final JobManager manager) throws InterruptedException {
+		Thread shutdown = new Thread("Shutdown") { //$NON-NLS-1$
+			public void run() {
+				manager.shutdown();
+			}
+		};
+		shutdown.setDaemon(true);
+		shutdown.start();
+		shutdown.join(TIMEOUT);
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.eclipse.wst.jsdt.core.IIncludePathEntry;
+import org.eclipse.wst.jsdt.core.IJavaScriptElement;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
+import org.eclipse.wst.jsdt.core.IJavaScriptUnit;
+import org.eclipse.wst.jsdt.core.ISourceReference;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.JavaScriptModelException;
+
+/**
+ * Measures the throughput of JavaScript model lookups run concurrently, as the reconciler, content
+ * assist, search and the builder do. Run it as an Eclipse application with a workspace:
+ * <pre>eclipse -application org.eclipse.wst.jsdt.core.benchmarks.modelCache -data &lt;workspace&gt;</pre>
+ * <p>
+ * Creates a project of 200 files which all fit in the model cache and opens them, then prints the
+ * lookups answered per second by 1 to 16 threads, and the speedup over a single thread. Each lookup
+ * gets the children of a file and the source range of one of them, reading the infos of both from the
+ * model cache. The project is deleted afterwards.
+ * </p>
+ */
+public class ModelCacheBenchmark implements IApplication {
+
+	static final String PROJECT = "ModelCacheBenchmark"; //$NON-NLS-1$
+	static final int FILES = 200;
+	static final int FUNCTIONS = 50; // per file
+	static final long WARM_UP = 2000; // milliseconds
+	static final long DURATION = 3000; // milliseconds per thread count
+
+	IJavaScriptUnit[] units;
+	volatile boolean stop;
+
+	public Object start(IApplicationContext context) throws Exception {
+		IProject project = createProject();
+		try {
+			this.units = createUnits(project);
+			measure(Runtime.getRuntime().availableProcessors(), WARM_UP);
+			System.out.println(Runtime.getRuntime().availableProcessors() + " processors"); //$NON-NLS-1$
+			System.out.println("threads\tlookups/s\tspeedup"); //$NON-NLS-1$
+			double single = 0;
+			for (int threads = 1; threads <= 16; threads *= 2) {
+				double rate = measure(threads, DURATION);
+				if (threads == 1)
+					single = rate;
+				System.out.println(threads + "\t" + Math.round(rate) + "\t\t" + Math.round(rate * 100 / single) / 100d); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			project.delete(true, true, null);
+		}
+		return IApplication.EXIT_OK;
+	}
+
+	public void stop() {
+		this.stop = true;
+	}
+
+	/*
+	 * Creates a JavaScript project whose include path is its own folder.
+	 */
+	static IProject createProject() throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+		if (project.exists())
+			project.delete(true, true, null);
+		project.create(null);
+		project.open(null);
+		IProjectDescription description = project.getDescription();
+		description.setNatureIds(new String[] {JavaScriptCore.NATURE_ID});
+		project.setDescription(description, null);
+		IJavaScriptProject javaProject = JavaScriptCore.create(project);
+		javaProject.setRawIncludepath(new IIncludePathEntry[] {JavaScriptCore.newSourceEntry(project.getFullPath())}, null);
+		return project;
+	}
+
+	/*
+	 * Writes the files of the project and opens their units.
+	 */
+	static IJavaScriptUnit[] createUnits(IProject project) throws CoreException {
+		IJavaScriptUnit[] units = new IJavaScriptUnit[FILES];
+		for (int i = 0; i < FILES; i++) {
+			StringBuffer source = new StringBuffer();
+			for (int j = 0; j < FUNCTIONS; j++)
+				source.append("function f").append(i).append('_').append(j).append("(a, b) {\n\treturn a + b;\n}\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			IFile file = project.getFile("file" + i + ".js"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.create(new ByteArrayInputStream(source.toString().getBytes()), true, null);
+			units[i] = JavaScriptCore.createCompilationUnitFrom(file);
+			units[i].open(null);
+		}
+		return units;
+	}
+
+	/*
+	 * Answers the number of lookups per second answered by the given number of threads.
+	 */
+	double measure(int threadCount, long duration) throws InterruptedException {
+		this.stop = false;
+		final long[] counts = new long[threadCount];
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			final int thread = i;
+			threads[i] = new Thread() {
+				public void run() {
+					Random random = new Random(thread);
+					try {
+						while (!ModelCacheBenchmark.this.stop) {
+							lookupOnce(random);
+							counts[thread]++;
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+		}
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < threadCount; i++)
+			threads[i].start();
+		Thread.sleep(duration);
+		this.stop = true;
+		long total = 0;
+		for (int i = 0; i < threadCount; i++) {
+			threads[i].join();
+			total += counts[i];
+		}
+		long time = System.currentTimeMillis() - start;
+		if (failure[0] != null)
+			throw new RuntimeException(failure[0]);
+		return total * 1000d / time;
+	}
+
+	void lookupOnce(Random random) throws JavaScriptModelException {
+		IJavaScriptUnit unit = this.units[random.nextInt(this.units.length)];
+		IJavaScriptElement[] children = unit.getChildren();
+		((ISourceReference) children[random.nextInt(children.length)]).getSourceRange();
+	}
+}
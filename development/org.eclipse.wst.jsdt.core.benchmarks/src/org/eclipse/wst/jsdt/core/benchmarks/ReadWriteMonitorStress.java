@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.internal.core.search.indexing.ReadWriteMonitor;
+
+/**
+ * Stress test of the ReadWriteMonitor guarding the indexes. Run it as a Java application with the
+ * org.eclipse.wst.jsdt.core bundle on the class path, optionally passing the number of seconds
+ * each scenario runs (5 by default).
+ * <p>
+ * Checks that readers never run while a writer does and that writers run alone, while threads:
+ * <ul>
+ * <li>upgrade with exitReadEnterWrite() and downgrade with exitWriteEnterRead(), as
+ * IndexManager#saveIndexes() does,</li>
+ * <li>read in the background and then wait for write permission with exitBackgroundReadEnterWrite(),
+ * as Index#merge() does,</li>
+ * <li>keep reading while a writer waits, or keep writing while a reader waits, in which case the
+ * longest wait must stay short.</li>
+ * </ul>
+ * Exits with 1 if a check failed or if threads got stuck.
+ * </p>
+ */
+public class ReadWriteMonitorStress {
+
+	static final long MAX_WAIT = 1000; // milliseconds a writer can wait behind readers, or a reader behind writers
+	static final long JOIN_TIMEOUT = 10000; // milliseconds after which threads which did not stop are stuck
+
+	/*
+	 * Shadows the state of the monitor to check that its permissions are exclusive.
+	 * Permissions are recorded after they are acquired, and released before they are given back.
+	 */
+	static class Checker {
+		private int readers;
+		private int writers;
+		private long version; // number of writes so far
+		private int failures;
+
+		synchronized void startRead(String where) {
+			if (this.writers > 0)
+				fail(where + ": reading while " + this.writers + " writer(s) write"); //$NON-NLS-1$ //$NON-NLS-2$
+			this.readers++;
+		}
+		synchronized void endRead() {
+			this.readers--;
+		}
+		synchronized void startWrite(String where) {
+			if (this.writers > 0 || this.readers > 0)
+				fail(where + ": writing while " + this.readers + " reader(s) read and " + this.writers + " writer(s) write"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			this.writers++;
+			this.version++;
+		}
+		synchronized void endWrite() {
+			this.writers--;
+		}
+		synchronized void readToWrite(String where) {
+			this.readers--;
+			startWrite(where);
+		}
+		synchronized void writeToRead(String where) {
+			this.writers--;
+			startRead(where);
+		}
+		synchronized long version() {
+			return this.version;
+		}
+		synchronized void fail(String message) {
+			if (this.failures++ < 10)
+				System.out.println("FAILED " + message); //$NON-NLS-1$
+		}
+		synchronized int failures() {
+			return this.failures;
+		}
+	}
+
+	/*
+	 * Counts events and the longest wait of the threads of a scenario.
+	 */
+	static class Counter {
+		private long count;
+		private long maxWait;
+
+		synchronized void add(long wait) {
+			this.count++;
+			if (wait > this.maxWait)
+				this.maxWait = wait;
+		}
+		synchronized long count() {
+			return this.count;
+		}
+		synchronized long maxWait() {
+			return this.maxWait;
+		}
+	}
+
+	final Checker checker = new Checker();
+	final long duration;
+	volatile boolean stop;
+
+	ReadWriteMonitorStress(long duration) {
+		this.duration = duration;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+		ReadWriteMonitorStress stress = new ReadWriteMonitorStress(seconds * 1000);
+		stress.upgradeAndDowngrade();
+		stress.backgroundRead();
+		stress.writerStarvation();
+		stress.readerStarvation();
+		int failures = stress.checker.failures();
+		System.out.println(failures == 0 ? "PASSED" : "FAILED with " + failures + " failure(s)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/*
+	 * Readers which upgrade to write and downgrade back to read, mixed with plain writers.
+	 */
+	void upgradeAndDowngrade() throws InterruptedException {
+		final ReadWriteMonitor monitor = new ReadWriteMonitor();
+		final Counter reads = new Counter();
+		final Counter writes = new Counter();
+		final Counter upgrades = new Counter();
+		final Counter refusedUpgrades = new Counter();
+		Runnable[] tasks = new Runnable[8];
+		for (int i = 0; i < tasks.length; i++) {
+			final Random random = new Random(i);
+			tasks[i] = new Runnable() {
+				public void run() {
+					while (!ReadWriteMonitorStress.this.stop) {
+						if (random.nextInt(4) == 0) {
+							monitor.enterWrite();
+							ReadWriteMonitorStress.this.checker.startWrite("enterWrite"); //$NON-NLS-1$
+							work(random);
+							ReadWriteMonitorStress.this.checker.endWrite();
+							monitor.exitWrite();
+							writes.add(0);
+							continue;
+						}
+						monitor.enterRead();
+						ReadWriteMonitorStress.this.checker.startRead("enterRead"); //$NON-NLS-1$
+						work(random);
+						if (random.nextBoolean()) {
+							if (monitor.exitReadEnterWrite()) {
+								ReadWriteMonitorStress.this.checker.readToWrite("exitReadEnterWrite"); //$NON-NLS-1$
+								work(random);
+								long version = ReadWriteMonitorStress.this.checker.version();
+								ReadWriteMonitorStress.this.checker.writeToRead("exitWriteEnterRead"); //$NON-NLS-1$
+								monitor.exitWriteEnterRead();
+								work(random); // give waiting writers a chance to get in by mistake
+								if (ReadWriteMonitorStress.this.checker.version() != version)
+									ReadWriteMonitorStress.this.checker.fail("exitWriteEnterRead: a writer got in before the read"); //$NON-NLS-1$
+								upgrades.add(0);
+							} else {
+								refusedUpgrades.add(0);
+							}
+						}
+						ReadWriteMonitorStress.this.checker.endRead();
+						monitor.exitRead();
+						reads.add(0);
+					}
+				}
+			};
+		}
+		run("upgrade and downgrade", tasks); //$NON-NLS-1$
+		System.out.println("upgrade and downgrade: " + reads.count() + " reads, " + writes.count() + " writes, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			+ upgrades.count() + " upgrades, " + refusedUpgrades.count() + " refused upgrades"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * A background reader which sometimes waits for write permission, as a merge does, while other threads
+	 * read and write. Readers must not wait for the writers which wait for the background reader.
+	 */
+	void backgroundRead() throws InterruptedException {
+		final ReadWriteMonitor monitor = new ReadWriteMonitor();
+
+		// a writer waits for the background reader, a new reader must still get in
+		monitor.enterBackgroundRead();
+		Thread writer = start(new Runnable() {
+			public void run() {
+				monitor.enterWrite();
+				monitor.exitWrite();
+			}
+		});
+		Thread.sleep(100); // let the writer wait
+		Thread reader = start(new Runnable() {
+			public void run() {
+				monitor.enterRead();
+				monitor.exitRead();
+			}
+		});
+		reader.join(MAX_WAIT);
+		if (reader.isAlive())
+			this.checker.fail("enterRead: blocked by a writer waiting for a background reader"); //$NON-NLS-1$
+		monitor.exitBackgroundRead();
+		writer.join(MAX_WAIT);
+		if (writer.isAlive())
+			this.checker.fail("enterWrite: still blocked once the background reader is done"); //$NON-NLS-1$
+		reader.join(MAX_WAIT);
+		if (writer.isAlive() || reader.isAlive()) {
+			dumpThreads();
+			return;
+		}
+
+		final Counter merges = new Counter();
+		final Counter reads = new Counter();
+		final Counter writes = new Counter();
+		Runnable[] tasks = new Runnable[7];
+		tasks[0] = new Runnable() {
+			public void run() {
+				Random random = new Random(0);
+				while (!ReadWriteMonitorStress.this.stop) {
+					monitor.enterBackgroundRead();
+					ReadWriteMonitorStress.this.checker.startRead("enterBackgroundRead"); //$NON-NLS-1$
+					pause(random);
+					if (random.nextInt(4) == 0) {
+						ReadWriteMonitorStress.this.checker.endRead();
+						monitor.exitBackgroundRead();
+						continue;
+					}
+					long start = System.currentTimeMillis();
+					monitor.exitBackgroundReadEnterWrite();
+					ReadWriteMonitorStress.this.checker.readToWrite("exitBackgroundReadEnterWrite"); //$NON-NLS-1$
+					merges.add(System.currentTimeMillis() - start);
+					work(random);
+					ReadWriteMonitorStress.this.checker.endWrite();
+					monitor.exitWrite();
+				}
+			}
+		};
+		for (int i = 1; i < tasks.length; i++) {
+			final Random random = new Random(i);
+			final boolean isWriter = i <= 2;
+			tasks[i] = new Runnable() {
+				public void run() {
+					while (!ReadWriteMonitorStress.this.stop) {
+						long start = System.currentTimeMillis();
+						if (isWriter) {
+							monitor.enterWrite();
+							ReadWriteMonitorStress.this.checker.startWrite("enterWrite"); //$NON-NLS-1$
+							writes.add(System.currentTimeMillis() - start);
+							work(random);
+							ReadWriteMonitorStress.this.checker.endWrite();
+							monitor.exitWrite();
+							pause(random);
+						} else {
+							monitor.enterRead();
+							ReadWriteMonitorStress.this.checker.startRead("enterRead"); //$NON-NLS-1$
+							reads.add(System.currentTimeMillis() - start);
+							work(random);
+							ReadWriteMonitorStress.this.checker.endRead();
+							monitor.exitRead();
+						}
+					}
+				}
+			};
+		}
+		run("background read", tasks); //$NON-NLS-1$
+		System.out.println("background read: " + merges.count() + " merges waiting at most " + merges.maxWait() + "ms, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			+ reads.count() + " reads waiting at most " + reads.maxWait() + "ms, " //$NON-NLS-1$ //$NON-NLS-2$
+			+ writes.count() + " writes waiting at most " + writes.maxWait() + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * Overlapping readers never leave the monitor idle, a writer must still get in quickly.
+	 */
+	void writerStarvation() throws InterruptedException {
+		final ReadWriteMonitor monitor = new ReadWriteMonitor();
+		final Counter reads = new Counter();
+		final Counter writes = new Counter();
+		Runnable[] tasks = new Runnable[9];
+		tasks[0] = new Runnable() {
+			public void run() {
+				Random random = new Random(0);
+				while (!ReadWriteMonitorStress.this.stop) {
+					long start = System.currentTimeMillis();
+					monitor.enterWrite();
+					ReadWriteMonitorStress.this.checker.startWrite("enterWrite"); //$NON-NLS-1$
+					writes.add(System.currentTimeMillis() - start);
+					ReadWriteMonitorStress.this.checker.endWrite();
+					monitor.exitWrite();
+					pause(random);
+				}
+			}
+		};
+		for (int i = 1; i < tasks.length; i++) {
+			final Random random = new Random(i);
+			tasks[i] = new Runnable() {
+				public void run() {
+					while (!ReadWriteMonitorStress.this.stop) {
+						monitor.enterRead();
+						ReadWriteMonitorStress.this.checker.startRead("enterRead"); //$NON-NLS-1$
+						pause(random);
+						ReadWriteMonitorStress.this.checker.endRead();
+						monitor.exitRead();
+						reads.add(0);
+					}
+				}
+			};
+		}
+		run("writer starvation", tasks); //$NON-NLS-1$
+		System.out.println("writer starvation: " + reads.count() + " reads, " //$NON-NLS-1$ //$NON-NLS-2$
+			+ writes.count() + " writes waiting at most " + writes.maxWait() + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (writes.count() == 0 || writes.maxWait() > MAX_WAIT)
+			this.checker.fail("enterWrite: starved by the readers"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Consecutive writers keep the monitor busy, a reader must still get in between them.
+	 */
+	void readerStarvation() throws InterruptedException {
+		final ReadWriteMonitor monitor = new ReadWriteMonitor();
+		final Counter reads = new Counter();
+		final Counter writes = new Counter();
+		Runnable[] tasks = new Runnable[5];
+		tasks[0] = new Runnable() {
+			public void run() {
+				Random random = new Random(0);
+				while (!ReadWriteMonitorStress.this.stop) {
+					long start = System.currentTimeMillis();
+					monitor.enterRead();
+					ReadWriteMonitorStress.this.checker.startRead("enterRead"); //$NON-NLS-1$
+					reads.add(System.currentTimeMillis() - start);
+					ReadWriteMonitorStress.this.checker.endRead();
+					monitor.exitRead();
+					pause(random);
+				}
+			}
+		};
+		for (int i = 1; i < tasks.length; i++) {
+			final Random random = new Random(i);
+			tasks[i] = new Runnable() {
+				public void run() {
+					while (!ReadWriteMonitorStress.this.stop) {
+						monitor.enterWrite();
+						ReadWriteMonitorStress.this.checker.startWrite("enterWrite"); //$NON-NLS-1$
+						pause(random);
+						ReadWriteMonitorStress.this.checker.endWrite();
+						monitor.exitWrite();
+						writes.add(0);
+					}
+				}
+			};
+		}
+		run("reader starvation", tasks); //$NON-NLS-1$
+		System.out.println("reader starvation: " + writes.count() + " writes, " //$NON-NLS-1$ //$NON-NLS-2$
+			+ reads.count() + " reads waiting at most " + reads.maxWait() + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (reads.count() == 0 || reads.maxWait() > MAX_WAIT)
+			this.checker.fail("enterRead: starved by the writers"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Runs the given tasks concurrently for the duration of a scenario, and reports the threads which got stuck.
+	 */
+	void run(String scenario, Runnable[] tasks) throws InterruptedException {
+		this.stop = false;
+		Thread[] threads = new Thread[tasks.length];
+		for (int i = 0; i < tasks.length; i++)
+			threads[i] = start(tasks[i]);
+		Thread.sleep(this.duration);
+		this.stop = true;
+		long deadline = System.currentTimeMillis() + JOIN_TIMEOUT;
+		boolean stuck = false;
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join(Math.max(1, deadline - System.currentTimeMillis()));
+			stuck |= threads[i].isAlive();
+		}
+		if (stuck) {
+			this.checker.fail(scenario + ": threads are stuck"); //$NON-NLS-1$
+			dumpThreads();
+		}
+	}
+
+	static Thread start(Runnable task) {
+		Thread thread = new Thread(task);
+		thread.setDaemon(true); // so that the stress test can exit when threads are stuck
+		thread.start();
+		return thread;
+	}
+
+	/*
+	 * Holds the current permission for a short time without giving up the processor.
+	 */
+	static void work(Random random) {
+		int iterations = random.nextInt(1000);
+		long sum = 0;
+		for (int i = 0; i < iterations; i++)
+			sum += i * i;
+		if (sum == 42) // never true, keeps the loop from being optimized away
+			System.out.println(sum);
+		if (random.nextInt(8) == 0)
+			Thread.yield();
+	}
+
+	/*
+	 * Holds the current permission, or none, for a millisecond or two.
+	 */
+	static void pause(Random random) {
+		try {
+			Thread.sleep(1 + random.nextInt(2));
+		} catch (InterruptedException e) {
+			// ignore
+		}
+	}
+
+	static void dumpThreads() {
+		for (Iterator iterator = Thread.getAllStackTraces().entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry entry = (Map.Entry) iterator.next();
+			System.out.println(entry.getKey());
+			StackTraceElement[] stack = (StackTraceElement[]) entry.getValue();
+			for (int i = 0; i < stack.length; i++)
+				System.out.println("\tat " + stack[i]); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
+
+/**
+ * Measures the time the spelling engine takes to load a dictionary and to compute the proposals for a
+ * misspelled word, when the words are read into hash buckets as before the compact word lists, when the
+ * compact word list is written on the first load, and when it is mapped on later loads. Run it as a Java
+ * application with the org.eclipse.wst.jsdt.ui bundle and its required bundles on the class path, optionally
+ * passing a UTF-8 word list with one word per line (a synthetic list of 100000 words by default).
+ * <p>
+ * Prints, for each way of loading, the average load time, the heap the loaded dictionary uses, the average
+ * time of getProposals() for misspelled words of the list and the number of proposals it found, which must
+ * be the same for all of them.
+ * </p>
+ */
+public class SpellDictionaryBenchmark {
+
+	static final int WORDS = 100000; // of the synthetic word list
+	static final int LOADS = 5; // after one to warm up
+	static final int MISSPELLINGS = 200;
+	static final int WARM_UP = 2; // rounds of every misspelling
+	static final long DURATION = 3000; // milliseconds per measure of getProposals()
+	static final String[] SYLLABLES = {
+		"an", "ar", "ba", "be", "ca", "co", "de", "di", "el", "en", "er", "fo", "ga", "ge", "in", "is", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$ //$NON-NLS-15$ //$NON-NLS-16$
+		"la", "le", "ma", "me", "mo", "na", "ne", "on", "or", "pa", "pe", "ra", "re", "ri", "sa", "se", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$ //$NON-NLS-15$ //$NON-NLS-16$
+		"si", "st", "ta", "te", "ti", "to", "tr", "un", "ve", "vi", "th", "ch", "qu", "sh", "ck", "ng", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$ //$NON-NLS-15$ //$NON-NLS-16$
+	};
+
+	static class Dictionary extends AbstractSpellDictionary {
+		final URL url;
+		final File compactFile;
+
+		Dictionary(URL url, File compactFile) {
+			this.url = url;
+			this.compactFile = compactFile;
+		}
+		protected URL getURL() throws MalformedURLException {
+			return this.url;
+		}
+		protected File getCompactFile(URL wordList) {
+			return this.compactFile; // null to keep the words in the hash buckets
+		}
+		protected String getEncoding() {
+			return "UTF-8"; //$NON-NLS-1$
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Random random = new Random(0);
+		File wordList = args.length > 0 ? new File(args[0]) : File.createTempFile("SpellDictionaryBenchmark", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+		File compactFile = File.createTempFile("SpellDictionaryBenchmark", ".dictionary"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			if (args.length == 0)
+				writeWords(wordList, random);
+			URL url = wordList.toURI().toURL();
+			String[] misspellings = misspell(readWords(wordList), random);
+
+			System.out.println("loading\tload ms\theap MB\tms/proposal\tproposals"); //$NON-NLS-1$
+			int expected = -1;
+			String[] names = {"hash buckets", "compact, written", "compact, mapped"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			for (int i = 0; i < names.length; i++) {
+				File file = i == 0 ? null : compactFile;
+				long loadTime = 0;
+				for (int j = 0; j <= LOADS; j++) {
+					if (i == 1)
+						compactFile.delete();
+					Dictionary dictionary = new Dictionary(url, file);
+					long start = System.nanoTime();
+					dictionary.isCorrect("a"); // loads the dictionary //$NON-NLS-1$
+					if (j > 0)
+						loadTime += System.nanoTime() - start;
+					dictionary.unload();
+				}
+				if (i == 1)
+					compactFile.delete();
+				Dictionary dictionary = new Dictionary(url, file);
+				dictionary.isCorrect("a"); //$NON-NLS-1$
+				long heap = usedHeap();
+				dictionary.unload();
+				heap -= usedHeap(); // what the loaded words used
+				dictionary.isCorrect("a"); // loads it again, from the compact word list if any //$NON-NLS-1$
+
+				int proposals = 0;
+				for (int j = 0; j < WARM_UP; j++)
+					proposals = getProposals(dictionary, misspellings);
+				if (expected == -1)
+					expected = proposals;
+				else if (proposals != expected)
+					throw new IllegalStateException(names[i] + " found " + proposals + " proposals instead of " + expected); //$NON-NLS-1$ //$NON-NLS-2$
+				int count = 0;
+				long start = System.currentTimeMillis();
+				long time;
+				do {
+					getProposals(dictionary, misspellings);
+					count += misspellings.length;
+				} while ((time = System.currentTimeMillis() - start) < DURATION);
+				System.out.println(names[i] + "\t" + Math.round(loadTime / 1000d / LOADS) / 1000d + "\t" + Math.round(heap * 10d / (1024 * 1024)) / 10d + "\t" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ Math.round(time * 1000d / count) / 1000d + "\t" + proposals); //$NON-NLS-1$
+				dictionary.unload();
+			}
+		} finally {
+			if (args.length == 0)
+				wordList.delete();
+			compactFile.delete();
+		}
+	}
+
+	/*
+	 * Writes words made of random syllables, which share their phonetic hashes as the words of a language do.
+	 */
+	static void writeWords(File file, Random random) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			StringBuffer word = new StringBuffer();
+			for (int i = 0; i < WORDS; i++) {
+				word.setLength(0);
+				for (int j = 1 + random.nextInt(5); j > 0; j--)
+					word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+				writer.write(word.toString());
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	static String[] readWords(File file) throws IOException {
+		ArrayList words = new ArrayList();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			String word;
+			while ((word = reader.readLine()) != null)
+				if (word.length() > 1)
+					words.add(word);
+		} finally {
+			reader.close();
+		}
+		return (String[]) words.toArray(new String[words.size()]);
+	}
+
+	/*
+	 * Answers words of the list with one letter replaced.
+	 */
+	static String[] misspell(String[] words, Random random) {
+		String[] misspellings = new String[MISSPELLINGS];
+		for (int i = 0; i < MISSPELLINGS; i++) {
+			char[] word = words[random.nextInt(words.length)].toCharArray();
+			word[random.nextInt(word.length)] = (char) ('a' + random.nextInt(26));
+			misspellings[i] = new String(word);
+		}
+		return misspellings;
+	}
+
+	static int getProposals(Dictionary dictionary, String[] words) {
+		int proposals = 0;
+		for (int i = 0; i < words.length; i++)
+			proposals += dictionary.getProposals(words[i], false).size();
+		return proposals;
+	}
+
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			runtime.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.internal.core.index.EntryResult;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+
+/**
+ * Builds index files shaped like the indexes of the JavaScript libraries: camel case words, most of them
+ * referenced by a few documents and some of them by many, so that the benchmarks of the index do not
+ * depend on the libraries installed.
+ */
+class SyntheticIndex {
+
+	private static final String[] SYLLABLES = {
+		"get", "set", "add", "remove", "create", "has", "is", "to", "on", "query", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+		"Element", "Node", "Document", "Window", "Event", "Listener", "Attribute", "Style", "Selector", "Range", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+		"Html", "Text", "Child", "Parent", "Name", "Id", "Tag", "Class", "List", "Map", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+		"By", "All", "Of", "From", "Value", "Content", "Offset", "Width", "Height", "Index", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+	};
+
+	/*
+	 * Answers the given number of distinct camel case words.
+	 */
+	static char[][] words(int count, Random random) {
+		HashSet words = new HashSet(count * 2);
+		char[][] result = new char[count][];
+		int found = 0;
+		while (found < count) {
+			StringBuffer word = new StringBuffer(SYLLABLES[random.nextInt(10)]);
+			for (int i = 1 + random.nextInt(4); i > 0; i--)
+				word.append(SYLLABLES[10 + random.nextInt(SYLLABLES.length - 10)]);
+			if (words.size() > count / 2)
+				word.append(random.nextInt(100)); // enough syllables were combined, number the others
+			if (words.add(word.toString()))
+				result[found++] = word.toString().toCharArray();
+		}
+		return result;
+	}
+
+	static String documentName(int document) {
+		return "libraries/lib" + (document / 100) + "/file" + document + ".js"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/*
+	 * Writes an index file referencing each word of each category from one or a few documents, or from up to
+	 * a quarter of the documents for one word in twenty.
+	 */
+	static Index create(File file, char[][] categories, char[][] words, int documents, Random random) throws IOException {
+		file.delete();
+		Index index = new Index(file.getPath(), "/libraries", false); //$NON-NLS-1$
+		for (int i = 0; i < categories.length; i++) {
+			for (int j = 0; j < words.length; j++) {
+				int references = random.nextInt(20) == 0 ? 1 + random.nextInt(Math.max(1, documents / 4)) : 1 + random.nextInt(3);
+				int first = random.nextInt(documents);
+				for (int k = 0; k < references; k++)
+					index.addIndexEntry(categories[i], words[j], documentName((first + k) % documents));
+			}
+		}
+		index.monitor.enterWrite();
+		try {
+			index.save();
+		} finally {
+			index.monitor.exitWrite();
+		}
+		return index;
+	}
+
+	/*
+	 * Runs a query the way searches do, with read permission.
+	 */
+	static int query(Index index, char[][] categories, char[] key, int matchRule, boolean readDocumentNames) throws IOException {
+		index.monitor.enterRead();
+		try {
+			index.startQuery();
+			try {
+				EntryResult[] entries = index.query(categories, key, matchRule);
+				if (entries == null) return 0;
+				int count = entries.length;
+				if (readDocumentNames)
+					for (int i = 0; i < entries.length; i++)
+						count += entries[i].getDocumentNames(index).length;
+				return count;
+			} finally {
+				index.stopQuery();
+			}
+		} finally {
+			index.monitor.exitRead();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+
+/**
+ * Measures the time an index query spends matching the words of a category of 200000 words against
+ * pattern, regular expression, camel case and prefix keys. Run it as a Java application with the
+ * org.eclipse.wst.jsdt.core bundle and its required bundles on the class path, optionally passing
+ * the directory where the index file is written (the temporary directory by default).
+ * <p>
+ * Prints the average time of each query once the category table is cached, and the number of words
+ * it matched, which must not change when the matching changes.
+ * </p>
+ */
+public class WordMatchBenchmark {
+
+	static final int DOCUMENTS = 1000;
+	static final int WORDS = 200000;
+	static final int WARM_UP = 20; // queries
+	static final long DURATION = 2000; // milliseconds per query
+	static final char[][] CATEGORY = {"methodDecl".toCharArray()}; //$NON-NLS-1$
+
+	static final String[] KEYS = {
+		"*element*by*", //$NON-NLS-1$
+		"get*Node", //$NON-NLS-1$
+		"?et*Child*", //$NON-NLS-1$
+		"get.*By(Id|Name)[0-9]*", //$NON-NLS-1$
+		"gEBI", //$NON-NLS-1$
+		"getElement", //$NON-NLS-1$
+		"getelementbyid", //$NON-NLS-1$
+	};
+	static final int[] MATCH_RULES = {
+		SearchPattern.R_PATTERN_MATCH,
+		SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_REGEXP_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_CAMELCASE_MATCH,
+		SearchPattern.R_PREFIX_MATCH,
+		SearchPattern.R_EXACT_MATCH,
+	};
+	static final String[] RULE_NAMES = {
+		"pattern", "pattern, case sensitive", "pattern, case sensitive", "regexp", "camel case", "prefix", "exact" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+	};
+
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir")); //$NON-NLS-1$
+		File file = new File(directory, "WordMatchBenchmark.index"); //$NON-NLS-1$
+		Random random = new Random(0);
+		char[][] words = SyntheticIndex.words(WORDS, random);
+		Index index = SyntheticIndex.create(file, CATEGORY, words, DOCUMENTS, random);
+		try {
+			System.out.println("key\tmatch rule\tmatches\tms/query"); //$NON-NLS-1$
+			for (int i = 0; i < KEYS.length; i++) {
+				char[] key = KEYS[i].toCharArray();
+				int matches = 0;
+				for (int j = 0; j < WARM_UP; j++)
+					matches = SyntheticIndex.query(index, CATEGORY, key, MATCH_RULES[i], false);
+				int count = 0;
+				long start = System.currentTimeMillis();
+				long time;
+				do {
+					SyntheticIndex.query(index, CATEGORY, key, MATCH_RULES[i], false);
+					count++;
+				} while ((time = System.currentTimeMillis() - start) < DURATION);
+				System.out.println(KEYS[i] + "\t" + RULE_NAMES[i] + "\t" + matches + "\t" + Math.round(time * 100d / count) / 100d); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
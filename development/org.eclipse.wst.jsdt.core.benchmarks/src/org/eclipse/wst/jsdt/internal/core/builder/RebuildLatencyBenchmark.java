@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.builder;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSet;
+
+/**
+ * Measures the time an incremental build spends finding the source files affected by a single-file edit,
+ * as IncrementalImageBuilder#addAffectedSourceFiles() does, on a synthetic state of 1000, 10000 and 50000
+ * source files. Run it as a Java application with the org.eclipse.wst.jsdt.core bundle and its required
+ * bundles on the class path, optionally passing the number of source files. It is in the package of the
+ * builder to reach the state, so it cannot run as part of the benchmarks bundle.
+ * <p>
+ * Prints, for each size of the state, the time to build its DependentIndex, which the first incremental
+ * build pays, and the average time per edit of checking every ReferenceCollection of the state, as before
+ * the index, and of checking only the dependents found through the index. Also prints the number of files
+ * affected per edit, which must be the same for both.
+ * </p>
+ */
+public class RebuildLatencyBenchmark {
+
+	static final int PACKAGES = 100;
+	static final int POPULAR_TYPES = 200; // referenced by half of the references of every file
+	static final int REFERENCES = 30; // simple names per file
+	static final int EDITS = 200; // edited files, the changed names are the package and the type of each
+	static final int WARM_UP = 5; // rounds of every edit
+	static final long DURATION = 2000; // milliseconds per measure
+
+	public static void main(String[] args) {
+		int[] sizes = args.length > 0 ? new int[] {Integer.parseInt(args[0])} : new int[] {1000, 10000, 50000};
+		System.out.println("files\tindex build ms\tscan ms/edit\tindex ms/edit\taffected files/edit"); //$NON-NLS-1$
+		for (int i = 0; i < sizes.length; i++) {
+			Random random = new Random(0);
+			State state = createState(sizes[i], random);
+			StringSet[][] edits = new StringSet[EDITS][];
+			for (int j = 0; j < EDITS; j++)
+				edits[j] = changedNames(random.nextInt(sizes[i]));
+
+			double buildTime = measureIndexBuild(state);
+			int scanned = 0, indexed = 0;
+			for (int j = 0; j < WARM_UP; j++) {
+				scanned = findAffected(state, edits, false);
+				indexed = findAffected(state, edits, true);
+			}
+			if (scanned != indexed)
+				throw new IllegalStateException("The index found " + indexed + " affected files instead of " + scanned); //$NON-NLS-1$ //$NON-NLS-2$
+			double scanTime = measureEdits(state, edits, false);
+			double indexTime = measureEdits(state, edits, true);
+			System.out.println(sizes[i] + "\t" + round(buildTime) + "\t" + round(scanTime) + "\t" + round(indexTime) + "\t" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ round((double) scanned / EDITS));
+		}
+	}
+
+	/*
+	 * Answers a state of files "src/pi/Typej.js" defining the type Typej, which reference the package and
+	 * the name of types picked among a few popular types and every type of the state.
+	 */
+	static State createState(int files, Random random) {
+		State state = new State();
+		state.references = new SimpleLookupTable(files);
+		state.names = new NameDictionary();
+		for (int i = 0; i < files; i++) {
+			char[][] simpleRefs = new char[REFERENCES][];
+			char[][][] qualifiedRefs = new char[REFERENCES][][];
+			for (int j = 0; j < REFERENCES; j++) {
+				int type = j % 2 == 0 ? random.nextInt(Math.min(POPULAR_TYPES, files)) : random.nextInt(files);
+				simpleRefs[j] = typeName(type).toCharArray();
+				qualifiedRefs[j] = new char[][] {"src".toCharArray(), packageName(type).toCharArray()}; //$NON-NLS-1$
+			}
+			ArrayList definedTypeNames = new ArrayList(1);
+			char[] mainTypeName = typeName(i).toCharArray();
+			definedTypeNames.add(mainTypeName);
+			state.record(typeLocator(i), qualifiedRefs, simpleRefs, mainTypeName, definedTypeNames);
+		}
+		return state;
+	}
+
+	static String packageName(int type) {
+		return "p" + type % PACKAGES; //$NON-NLS-1$
+	}
+
+	static String typeName(int type) {
+		return "Type" + type; //$NON-NLS-1$
+	}
+
+	static String typeLocator(int type) {
+		return "src/" + packageName(type) + '/' + typeName(type) + ".js"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * Answers the qualified and simple names IncrementalImageBuilder#addDependentsOf() records for an edit of the file.
+	 */
+	static StringSet[] changedNames(int type) {
+		StringSet qualifiedStrings = new StringSet(3);
+		qualifiedStrings.add("src/" + packageName(type)); //$NON-NLS-1$
+		StringSet simpleStrings = new StringSet(3);
+		simpleStrings.add(typeName(type));
+		return new StringSet[] {qualifiedStrings, simpleStrings};
+	}
+
+	static double measureIndexBuild(State state) {
+		int count = 0;
+		long start = System.currentTimeMillis();
+		long time;
+		do {
+			new DependentIndex(state.references);
+			count++;
+		} while ((time = System.currentTimeMillis() - start) < DURATION);
+		return (double) time / count;
+	}
+
+	static double measureEdits(State state, StringSet[][] edits, boolean useIndex) {
+		int count = 0;
+		long start = System.currentTimeMillis();
+		long time;
+		do {
+			findAffected(state, edits, useIndex);
+			count += edits.length;
+		} while ((time = System.currentTimeMillis() - start) < DURATION);
+		return (double) time / count;
+	}
+
+	/*
+	 * Answers the number of files affected by each of the edits, found as in IncrementalImageBuilder#addAffectedSourceFiles().
+	 */
+	static int findAffected(State state, StringSet[][] edits, boolean useIndex) {
+		int affected = 0;
+		for (int i = 0; i < edits.length; i++) {
+			char[][][] internedQualifiedNames = ReferenceCollection.internQualifiedNames(edits[i][0]);
+			if (internedQualifiedNames.length < edits[i][0].elementSize)
+				internedQualifiedNames = null;
+			char[][] internedSimpleNames = ReferenceCollection.internSimpleNames(edits[i][1]);
+			if (internedSimpleNames.length < edits[i][1].elementSize)
+				internedSimpleNames = null;
+			NameDictionary names = state.names;
+			int[] qualifiedIds = internedQualifiedNames == null ? null : names.findQualifiedIds(internedQualifiedNames, false);
+			int[] singleSegmentIds = internedQualifiedNames == null ? null : names.findQualifiedIds(internedQualifiedNames, true);
+			int[] simpleIds = internedSimpleNames == null ? null : names.findSimpleIds(internedSimpleNames);
+
+			SimpleSet dependents = useIndex ? state.getDependents().findDependents(qualifiedIds, singleSegmentIds, simpleIds) : null;
+			Object[] candidates = dependents == null ? state.references.keyTable : dependents.values;
+			for (int j = 0, l = candidates.length; j < l; j++) {
+				if (candidates[j] != null) {
+					ReferenceCollection refs = (ReferenceCollection) state.references.get(candidates[j]);
+					if (refs != null && refs.includes(qualifiedIds, singleSegmentIds, simpleIds))
+						affected++;
+				}
+			}
+		}
+		return affected;
+	}
+
+	static double round(double value) {
+		return Math.round(value * 1000d) / 1000d;
+	}
+}